@@ -0,0 +1,83 @@
+package com.howling.radar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+// Static drawing recorded once per size and replayed every frame:
+// RenderNode on API 29+ hardware canvases, Picture on older hardware canvases,
+// and a Bitmap for software canvases where replaying a Picture would cost the same as drawing.
+// Subclasses only implement record(); switching between layers keeps both recordings.
+public abstract class CachedLayer {
+    private final String name;
+    private final Paint bitmapPaint = new Paint();
+
+    protected int width = -1;
+    protected int height = -1;
+
+    private RenderNode renderNode;
+    private Picture picture;
+    private Bitmap bitmap;
+
+    protected CachedLayer(String name) {
+        this.name = name;
+        bitmapPaint.setFilterBitmap(true);
+    }
+
+    // Drops the recording when the size changes
+    protected void setSize(int width, int height) {
+        if (width == this.width && height == this.height) return;
+        release();
+        this.width = width;
+        this.height = height;
+    }
+
+    // Content changed without a size change
+    public void invalidateLayer() {
+        release();
+    }
+
+    public void release() {
+        if (renderNode != null) renderNode.discardDisplayList();
+        renderNode = null;
+        picture = null;
+        if (bitmap != null) bitmap.recycle();
+        bitmap = null;
+    }
+
+    // Layer content in (0, 0, width, height)
+    protected abstract void record(Canvas canvas);
+
+    // Replays at the canvas's current origin
+    protected void replay(Canvas canvas) {
+        if (width <= 0 || height <= 0) return;
+        if (canvas.isHardwareAccelerated()) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                if (renderNode == null || !renderNode.hasDisplayList()) {
+                    if (renderNode == null) renderNode = new RenderNode(name);
+                    renderNode.setPosition(0, 0, width, height);
+                    Canvas recording = renderNode.beginRecording();
+                    record(recording);
+                    renderNode.endRecording();
+                }
+                canvas.drawRenderNode(renderNode);
+            } else {
+                if (picture == null) {
+                    picture = new Picture();
+                    record(picture.beginRecording(width, height));
+                    picture.endRecording();
+                }
+                canvas.drawPicture(picture);
+            }
+        } else {
+            if (bitmap == null) {
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                record(new Canvas(bitmap));
+            }
+            canvas.drawBitmap(bitmap, 0, 0, bitmapPaint);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.howling.radar;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// ScanResult.capabilities ("[WPA2-PSK-CCMP][RSN-PSK+SAE-CCMP][ESS][WPS]") parsed into a bitmask.
+// Nearby APs mostly share a handful of these strings, so each distinct string is parsed once and
+// kept, together with its display strings, in a small LRU cache.
+public class Capabilities {
+    public static final int WPA = 1;
+    public static final int WPA2 = 1 << 1;
+    public static final int WPA3 = 1 << 2;
+    public static final int WEP = 1 << 3;
+    public static final int OPEN = 1 << 4;
+    public static final int WPS = 1 << 5;
+    public static final int PSK = 1 << 6;
+    public static final int EAP = 1 << 7;
+    public static final int SAE = 1 << 8;
+    public static final int OWE = 1 << 9;
+    public static final int TKIP = 1 << 10;
+    public static final int CCMP = 1 << 11;
+
+    private static final int CACHE_SIZE = 128;
+    private static final Map<String, Capabilities> CACHE = new LinkedHashMap<String, Capabilities>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Capabilities> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static final int[] PROTOCOLS = {WEP, WPA, WPA2, WPA3};
+    private static final String[] PROTOCOL_NAMES = {"WEP", "WPA", "WPA2", "WPA3"};
+    private static final int[] KEY_MGMT = {PSK, SAE, EAP, OWE};
+    private static final String[] KEY_MGMT_NAMES = {"PSK", "SAE", "EAP", "OWE"};
+    private static final int[] CIPHERS = {TKIP, CCMP};
+    private static final String[] CIPHER_NAMES = {"TKIP", "CCMP"};
+
+    public final String raw;
+    public final int bits;
+    // Strongest protocol: "WPA3", "WPA2", "WPA", "WEP" or "OPEN"
+    public final String security;
+    // e.g. "WPA2/WPA3 PSK+SAE CCMP"
+    public final String detail;
+    // Radar label, "SEC: WPA2"
+    public final String label;
+
+    private Capabilities(String raw, int bits) {
+        this.raw = raw;
+        this.bits = bits;
+        security = securityName(bits);
+        detail = describe(bits);
+        label = "SEC: " + security;
+    }
+
+    public static Capabilities of(String caps) {
+        if (caps == null) caps = "";
+        synchronized (CACHE) {
+            Capabilities c = CACHE.get(caps);
+            if (c == null) {
+                c = new Capabilities(caps, parse(caps));
+                CACHE.put(caps, c);
+            }
+            return c;
+        }
+    }
+
+    public boolean has(int flag) {
+        return (bits & flag) != 0;
+    }
+
+    public boolean isOpen() {
+        return (bits & OPEN) != 0;
+    }
+
+    // One pass over the bracketed elements; each is "PROTO-KEYMGMT-CIPHERS" with '+' or '/' lists
+    public static int parse(String caps) {
+        int bits = 0;
+        int start = caps.indexOf('[');
+        while (start >= 0) {
+            int end = caps.indexOf(']', start);
+            if (end < 0) end = caps.length();
+            bits |= parseElement(caps.substring(start + 1, end));
+            start = caps.indexOf('[', end);
+        }
+        if ((bits & (WPA | WPA2 | WPA3 | WEP)) == 0) bits |= OPEN;
+        return bits;
+    }
+
+    private static int parseElement(String element) {
+        if (element.equals("WPS")) return WPS;
+        if (element.startsWith("WEP")) return WEP;
+
+        int bits;
+        if (element.startsWith("WPA3")) bits = WPA3;
+        else if (element.startsWith("WPA2") || element.startsWith("RSN")) bits = WPA2;
+        else if (element.startsWith("WPA")) bits = WPA;
+        else return 0; // ESS, IBSS, MFPR, ...
+
+        if (element.contains("PSK")) bits |= PSK;
+        if (element.contains("EAP")) bits |= EAP;
+        if (element.contains("SAE")) bits |= SAE;
+        if (element.contains("OWE")) bits |= OWE;
+        if (element.contains("TKIP")) bits |= TKIP;
+        if (element.contains("CCMP")) bits |= CCMP;
+        // SAE, OWE (Enhanced Open) and Suite-B are WPA3 even when advertised as RSN
+        if ((bits & (SAE | OWE)) != 0 || element.contains("SUITE_B") || element.contains("SUITE-B")) {
+            bits |= WPA3;
+            // An RSN element that only offers SAE/OWE isn't WPA2
+            if ((bits & (PSK | EAP)) == 0 || element.contains("SUITE")) bits &= ~WPA2;
+        }
+        return bits;
+    }
+
+    private static String securityName(int bits) {
+        if ((bits & WPA3) != 0) return "WPA3";
+        if ((bits & WPA2) != 0) return "WPA2";
+        if ((bits & WPA) != 0) return "WPA";
+        if ((bits & WEP) != 0) return "WEP";
+        return "OPEN";
+    }
+
+    private static String describe(int bits) {
+        if ((bits & OPEN) != 0) return "OPEN";
+        StringBuilder sb = new StringBuilder();
+        appendGroup(sb, bits, PROTOCOLS, PROTOCOL_NAMES, '/');
+        appendGroup(sb, bits, KEY_MGMT, KEY_MGMT_NAMES, '+');
+        appendGroup(sb, bits, CIPHERS, CIPHER_NAMES, '+');
+        return sb.toString();
+    }
+
+    // Groups are space separated, members within a group use separator
+    private static void appendGroup(StringBuilder sb, int bits, int[] flags, String[] names, char separator) {
+        boolean first = true;
+        for (int i = 0; i < flags.length; i++) {
+            if ((bits & flags[i]) == 0) continue;
+            if (first) {
+                if (sb.length() > 0) sb.append(' ');
+                first = false;
+            } else {
+                sb.append(separator);
+            }
+            sb.append(names[i]);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.howling.radar;
+
+// Keeps a LiveChannelOccupancy in step with the TargetTracker as scans are merged.
+// Each target remembers the contribution it last added, so an update is remove(old) + add(new)
+// and only targets whose channel, width or level actually changed touch the aggregate;
+// the cost per scan is O(changed APs), not O(all APs x channels).
+// Uses the raw level: the smoothed estimate moves on every scan for every target.
+// Ingest thread only; snapshots get a read-only copy through snapshot().
+public class ChannelAggregator implements TargetTracker.Listener {
+    private final LiveChannelOccupancy live = new LiveChannelOccupancy();
+    // Copy handed to the last snapshot; reused while nothing has changed
+    private ChannelOccupancy published = live.copy();
+    private boolean dirty;
+
+    @Override
+    public void onTargetAdded(TrackedTarget target) {
+        contribute(target);
+    }
+
+    @Override
+    public void onTargetUpdated(TrackedTarget target) {
+        if (target.counted
+                && target.countedFrequency == target.frequency
+                && target.countedWidth == target.channelWidth
+                && target.countedCenterFreq0 == target.centerFreq0
+                && target.countedCenterFreq1 == target.centerFreq1
+                && target.countedLevel == target.level) {
+            return;
+        }
+        withdraw(target);
+        contribute(target);
+    }
+
+    @Override
+    public void onTargetRemoved(TrackedTarget target) {
+        withdraw(target);
+    }
+
+    private void contribute(TrackedTarget t) {
+        live.add(t.frequency, t.channelWidth, t.centerFreq0, t.centerFreq1, t.level);
+        t.countedFrequency = t.frequency;
+        t.countedWidth = t.channelWidth;
+        t.countedCenterFreq0 = t.centerFreq0;
+        t.countedCenterFreq1 = t.centerFreq1;
+        t.countedLevel = t.level;
+        t.counted = true;
+        dirty = true;
+    }
+
+    private void withdraw(TrackedTarget t) {
+        if (!t.counted) return;
+        live.remove(t.countedFrequency, t.countedWidth, t.countedCenterFreq0, t.countedCenterFreq1, t.countedLevel);
+        t.counted = false;
+        dirty = true;
+    }
+
+    // Read-only copy of the current aggregate; the same instance until something changes
+    public ChannelOccupancy snapshot() {
+        if (dirty) {
+            published = live.copy();
+            dirty = false;
+        }
+        return published;
+    }
+}
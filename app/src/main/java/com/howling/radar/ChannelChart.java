@@ -0,0 +1,231 @@
+package com.howling.radar;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+// Spectrum view of a snapshot's ChannelOccupancy: one row per band, one column per 5 MHz channel.
+//   bar height   summed power on the channel (dBm)
+//   bar colour   overlap, how many APs cover the channel
+//   white tick   strongest single AP on the channel
+//   number       APs whose primary channel it is
+// Frames, dB grid and channel labels only change with the view size and live in a CachedLayer;
+// bars are drawn from the occupancy arrays, and row summaries and count labels are rebuilt once per
+// snapshot, so a frame formats no strings.
+public class ChannelChart {
+    private static final int[] BANDS = {WifiChannel.BAND_24_GHZ, WifiChannel.BAND_5_GHZ, WifiChannel.BAND_6_GHZ};
+    // Shown channel range per band (index = band); 5 GHz skips the Japan 4.9 GHz channels
+    private static final int[] FIRST_CHANNEL = {0, 1, 32, 1};
+    private static final int[] LAST_CHANNEL = {0, 14, 177, 233};
+    private static final int[][] TICK_CHANNELS = {
+            {},
+            {1, 6, 11, 14},
+            {36, 52, 100, 116, 132, 149, 165},
+            {1, 33, 65, 97, 129, 161, 193, 225},
+    };
+
+    private static final int DBM_FLOOR = -100;
+    private static final int DBM_CEIL = -20;
+    private static final int[] GRID_DBM = {-90, -70, -50, -30};
+    private static final String[] GRID_LABELS = labels(GRID_DBM);
+    private static final String[][] TICK_LABELS = {
+            labels(TICK_CHANNELS[0]), labels(TICK_CHANNELS[1]), labels(TICK_CHANNELS[2]), labels(TICK_CHANNELS[3]),
+    };
+
+    // Chart area inside the view; the top clears the HUD
+    private static final float MARGIN_LEFT = 110;
+    private static final float MARGIN_RIGHT = 40;
+    private static final float MARGIN_TOP = 150;
+    private static final float MARGIN_BOTTOM = 40;
+    // Per row: summary line above the plot, channel labels below it
+    private static final float ROW_HEADER = 40;
+    private static final float ROW_FOOTER = 40;
+
+    private final Paint paint = new Paint();
+    private final Paint textPaint = new Paint();
+
+    private int viewWidth = -1;
+    private int viewHeight = -1;
+    private float rowHeight;
+    private float plotWidth;
+
+    private final CachedLayer gridLayer = new CachedLayer("ChannelGrid") {
+        @Override
+        protected void record(Canvas canvas) {
+            drawGrid(canvas);
+        }
+    };
+
+    private ScanSnapshot summarized;
+    private final String[] summary = new String[WifiChannel.MAX_CHANNEL.length];
+    // primary[band][ch] as text, null where it's zero
+    private final String[][] primaryLabel = new String[WifiChannel.MAX_CHANNEL.length][];
+
+    public ChannelChart() {
+        paint.setAntiAlias(true);
+        textPaint.setAntiAlias(true);
+        textPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        for (int band : BANDS) primaryLabel[band] = new String[LAST_CHANNEL[band] + 1];
+    }
+
+    public void release() {
+        gridLayer.release();
+    }
+
+    public void draw(Canvas canvas, ScanSnapshot snapshot, int width, int height) {
+        if (width != viewWidth || height != viewHeight) {
+            viewWidth = width;
+            viewHeight = height;
+            rowHeight = (height - MARGIN_TOP - MARGIN_BOTTOM) / BANDS.length;
+            plotWidth = width - MARGIN_LEFT - MARGIN_RIGHT;
+            gridLayer.setSize(width, height);
+        }
+        if (rowHeight <= ROW_HEADER + ROW_FOOTER || plotWidth <= 0) return;
+        if (snapshot != summarized) {
+            summarized = snapshot;
+            buildSummaries(snapshot.occupancy);
+        }
+
+        gridLayer.replay(canvas);
+
+        ChannelOccupancy o = snapshot.occupancy;
+        for (int r = 0; r < BANDS.length; r++) {
+            int band = BANDS[r];
+            float top = plotTop(r);
+            float bottom = plotBottom(r);
+            float slot = slotWidth(band);
+
+            textPaint.setTextAlign(Paint.Align.LEFT);
+            textPaint.setTextSize(22);
+            textPaint.setColor(Color.GREEN);
+            textPaint.setAlpha(200);
+            canvas.drawText(summary[band], MARGIN_LEFT, top - 12, textPaint);
+
+            textPaint.setTextAlign(Paint.Align.CENTER);
+            textPaint.setTextSize(Math.min(20, Math.max(12, slot * 1.6f)));
+            textPaint.setColor(Color.WHITE);
+            for (int ch = FIRST_CHANNEL[band]; ch <= LAST_CHANNEL[band]; ch++) {
+                int covering = o.covering(band, ch);
+                if (covering <= 0) continue;
+                float x = slotLeft(band, ch);
+                float barTop = levelY(o.powerDbm(band, ch), top, bottom);
+
+                paint.setStyle(Paint.Style.FILL);
+                paint.setColor(overlapColor(covering));
+                paint.setAlpha(170);
+                canvas.drawRect(x + 1, barTop, x + slot - 1, bottom, paint);
+
+                int peak = o.peakDbm(band, ch);
+                if (peak != ChannelOccupancy.NO_PEAK) {
+                    float peakY = levelY(peak, top, bottom);
+                    paint.setColor(Color.WHITE);
+                    paint.setAlpha(230);
+                    canvas.drawRect(x, peakY - 1.5f, x + slot, peakY + 1.5f, paint);
+                }
+
+                // Counts only where there's room, i.e. on primaries; bars alone show the spread
+                String primary = primaryLabel[band][ch];
+                if (primary != null) {
+                    canvas.drawText(primary, x + slot / 2, Math.min(barTop, bottom) - 6, textPaint);
+                }
+            }
+        }
+    }
+
+    // "2.4 GHz  APs 12  busiest CH 6 (7 overlapping)", plus the per-channel primary counts
+    private void buildSummaries(ChannelOccupancy o) {
+        for (int band : BANDS) {
+            String[] labels = primaryLabel[band];
+            for (int ch = FIRST_CHANNEL[band]; ch <= LAST_CHANNEL[band]; ch++) {
+                int primary = o.primary(band, ch);
+                labels[ch] = primary > 0 ? Integer.toString(primary) : null;
+            }
+
+            int aps = 0;
+            int busiest = 0;
+            for (int ch = 1; ch < o.channelSlots(band); ch++) {
+                aps += o.primary(band, ch);
+                if (o.covering(band, ch) > (busiest > 0 ? o.covering(band, busiest) : 0)) busiest = ch;
+            }
+            StringBuilder sb = new StringBuilder(WifiChannel.bandName(band)).append("  APs ").append(aps);
+            if (busiest > 0) {
+                sb.append("  busiest CH ").append(busiest)
+                        .append(" (").append(o.covering(band, busiest)).append(" overlapping)");
+            }
+            summary[band] = sb.toString();
+        }
+    }
+
+    // Row frames, dB grid lines, channel labels: only depend on the size
+    private void drawGrid(Canvas canvas) {
+        textPaint.setStyle(Paint.Style.FILL);
+        for (int r = 0; r < BANDS.length; r++) {
+            int band = BANDS[r];
+            float top = plotTop(r);
+            float bottom = plotBottom(r);
+            float right = MARGIN_LEFT + plotWidth;
+
+            paint.setStyle(Paint.Style.STROKE);
+            paint.setColor(Color.GREEN);
+            paint.setStrokeWidth(1);
+            paint.setAlpha(50);
+            textPaint.setColor(Color.GREEN);
+            textPaint.setAlpha(140);
+            textPaint.setTextSize(18);
+            textPaint.setTextAlign(Paint.Align.RIGHT);
+            for (int i = 0; i < GRID_DBM.length; i++) {
+                float y = levelY(GRID_DBM[i], top, bottom);
+                canvas.drawLine(MARGIN_LEFT, y, right, y, paint);
+                canvas.drawText(GRID_LABELS[i], MARGIN_LEFT - 10, y + 6, textPaint);
+            }
+
+            paint.setAlpha(120);
+            paint.setStrokeWidth(2);
+            canvas.drawRect(MARGIN_LEFT, top, right, bottom, paint);
+
+            textPaint.setTextAlign(Paint.Align.CENTER);
+            float slot = slotWidth(band);
+            for (int i = 0; i < TICK_CHANNELS[band].length; i++) {
+                float x = slotLeft(band, TICK_CHANNELS[band][i]) + slot / 2;
+                canvas.drawLine(x, bottom, x, bottom + 8, paint);
+                canvas.drawText(TICK_LABELS[band][i], x, bottom + 28, textPaint);
+            }
+        }
+    }
+
+    private float plotTop(int row) {
+        return MARGIN_TOP + row * rowHeight + ROW_HEADER;
+    }
+
+    private float plotBottom(int row) {
+        return MARGIN_TOP + (row + 1) * rowHeight - ROW_FOOTER;
+    }
+
+    private float slotWidth(int band) {
+        return plotWidth / (LAST_CHANNEL[band] - FIRST_CHANNEL[band] + 1);
+    }
+
+    private float slotLeft(int band, int channel) {
+        return MARGIN_LEFT + (channel - FIRST_CHANNEL[band]) * slotWidth(band);
+    }
+
+    private static float levelY(float dbm, float top, float bottom) {
+        float f = (dbm - DBM_FLOOR) / (DBM_CEIL - DBM_FLOOR);
+        if (f < 0) f = 0;
+        if (f > 1) f = 1;
+        return bottom - f * (bottom - top);
+    }
+
+    private static String[] labels(int[] values) {
+        String[] labels = new String[values.length];
+        for (int i = 0; i < values.length; i++) labels[i] = Integer.toString(values[i]);
+        return labels;
+    }
+
+    private static int overlapColor(int covering) {
+        if (covering <= 1) return Color.GREEN;
+        if (covering <= 3) return Color.YELLOW;
+        return Color.RED;
+    }
+}
@@ -0,0 +1,66 @@
+package com.howling.radar;
+
+import java.util.Arrays;
+
+// Per-channel load for each band, on the 5 MHz channel-number grid.
+//   primary(band, ch)   APs whose primary channel is ch
+//   covering(band, ch)  APs whose occupied spectrum (width, centerFreq0/1) overlaps ch's center
+//   powerDbm(band, ch)  summed received power of those APs
+//   peakDbm(band, ch)   strongest of those APs, NO_PEAK when none
+// Immutable: this is the form handed out with every snapshot and read from other threads, so the
+// arrays are copied in and only reachable through the accessors. Copies are O(channels),
+// independent of the AP count. LiveChannelOccupancy is the one that is kept up to date.
+public class ChannelOccupancy {
+    public static final int NO_PEAK = Integer.MIN_VALUE;
+
+    private final int[][] primary = new int[WifiChannel.MAX_CHANNEL.length][];
+    private final int[][] covering = new int[WifiChannel.MAX_CHANNEL.length][];
+    private final double[][] powerMw = new double[WifiChannel.MAX_CHANNEL.length][];
+    private final int[][] peakDbm = new int[WifiChannel.MAX_CHANNEL.length][];
+
+    // Nothing on any channel
+    public ChannelOccupancy() {
+        for (int b = 0; b < WifiChannel.MAX_CHANNEL.length; b++) {
+            int slots = WifiChannel.MAX_CHANNEL[b] + 1;
+            primary[b] = new int[slots];
+            covering[b] = new int[slots];
+            powerMw[b] = new double[slots];
+            peakDbm[b] = new int[slots];
+            Arrays.fill(peakDbm[b], NO_PEAK);
+        }
+    }
+
+    // Copy of the given counts, sums and peaks; the arrays stay with the caller
+    ChannelOccupancy(int[][] primary, int[][] covering, double[][] powerMw, int[][] peakDbm) {
+        for (int b = 0; b < WifiChannel.MAX_CHANNEL.length; b++) {
+            this.primary[b] = primary[b].clone();
+            this.covering[b] = covering[b].clone();
+            this.powerMw[b] = powerMw[b].clone();
+            this.peakDbm[b] = peakDbm[b].clone();
+        }
+    }
+
+    // Channel numbers run 1 .. channelSlots(band) - 1
+    public int channelSlots(int band) {
+        return primary[band].length;
+    }
+
+    public int primary(int band, int channel) {
+        return primary[band][channel];
+    }
+
+    public int covering(int band, int channel) {
+        return covering[band][channel];
+    }
+
+    public int peakDbm(int band, int channel) {
+        return peakDbm[band][channel];
+    }
+
+    // Summed power on a channel in dBm, or NEGATIVE_INFINITY when nothing covers it
+    public float powerDbm(int band, int channel) {
+        // Checked on the count: add/remove pairs can leave rounding residue in the sum
+        if (covering[band][channel] <= 0) return Float.NEGATIVE_INFINITY;
+        return (float) (10 * Math.log10(Math.max(powerMw[band][channel], 1e-15)));
+    }
+}
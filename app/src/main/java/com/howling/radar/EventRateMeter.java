@@ -0,0 +1,52 @@
+package com.howling.radar;
+
+// Counts delivered sensor events and reports the rate over the last closed window,
+// so the effect of rate changes and batching can be read back during long sessions.
+public class EventRateMeter {
+    private static final long WINDOW_NANOS = 5_000_000_000L;
+
+    private long windowStart = -1;
+    private int windowEvents;
+    private float rate;
+    private long totalEvents;
+    private long firstEvent = -1;
+    private long lastEvent;
+
+    public void onEvent(long nanos) {
+        totalEvents++;
+        if (firstEvent < 0) firstEvent = nanos;
+        lastEvent = nanos;
+        if (windowStart < 0) windowStart = nanos;
+        windowEvents++;
+        long elapsed = nanos - windowStart;
+        if (elapsed >= WINDOW_NANOS) {
+            rate = windowEvents * 1e9f / elapsed;
+            windowStart = nanos;
+            windowEvents = 0;
+        }
+    }
+
+    // Events per second over the last full window
+    public float getRate() {
+        return rate;
+    }
+
+    // Events per second since the first event
+    public float getAverageRate() {
+        long elapsed = lastEvent - firstEvent;
+        return elapsed > 0 ? (totalEvents - 1) * 1e9f / elapsed : 0;
+    }
+
+    public long getTotalEvents() {
+        return totalEvents;
+    }
+
+    public void reset() {
+        windowStart = -1;
+        windowEvents = 0;
+        rate = 0;
+        totalEvents = 0;
+        firstEvent = -1;
+        lastEvent = 0;
+    }
+}
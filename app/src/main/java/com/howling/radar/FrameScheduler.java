@@ -0,0 +1,66 @@
+package com.howling.radar;
+
+import android.view.Choreographer;
+
+// Vsync-driven frame loop with an optional FPS cap.
+// Below the display rate it sleeps until just before the next frame it wants instead of
+// waking on every vsync, and once stopped nothing is posted at all.
+public class FrameScheduler implements Choreographer.FrameCallback {
+    public interface Callback {
+        void onFrame(long frameTimeNanos);
+    }
+
+    private final Callback callback;
+    private long frameIntervalNanos; // 0 = every vsync
+    private long lastFrameNanos;
+    private boolean running;
+
+    public FrameScheduler(Callback callback) {
+        this.callback = callback;
+    }
+
+    // fps <= 0 runs at the display refresh rate
+    public void setTargetFps(int fps) {
+        frameIntervalNanos = fps > 0 ? 1_000_000_000L / fps : 0;
+    }
+
+    public int getTargetFps() {
+        return frameIntervalNanos > 0 ? (int) (1_000_000_000L / frameIntervalNanos) : 0;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void start() {
+        if (running) return;
+        running = true;
+        lastFrameNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    public void stop() {
+        if (!running) return;
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) return;
+
+        long sinceLast = frameTimeNanos - lastFrameNanos;
+        // Allow 2 ms of vsync jitter so a 30 fps cap on a 60 Hz panel takes every other frame
+        if (lastFrameNanos == 0 || sinceLast >= frameIntervalNanos - 2_000_000L) {
+            lastFrameNanos = frameTimeNanos;
+            callback.onFrame(frameTimeNanos);
+        }
+
+        long waitMillis = (frameIntervalNanos - (frameTimeNanos - lastFrameNanos)) / 1_000_000L - 8;
+        if (waitMillis > 0) {
+            Choreographer.getInstance().postFrameCallbackDelayed(this, waitMillis);
+        } else {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.howling.radar;
+
+// Alpha-beta (steady-state Kalman) filter on a compass heading in degrees.
+// Tracks heading and turn rate so it follows a steady turn without the lag of a plain
+// low-pass, and handles the 359 -> 0 wrap. timeConstant is the latency/noise knob.
+public class HeadingFilter {
+    private float timeConstant;
+    private float heading;
+    private float rate; // deg/s
+    private long lastNanos;
+    private boolean initialized;
+
+    public HeadingFilter(float timeConstantSeconds) {
+        this.timeConstant = timeConstantSeconds;
+    }
+
+    public void setTimeConstant(float seconds) {
+        timeConstant = seconds;
+    }
+
+    public void reset() {
+        initialized = false;
+        rate = 0;
+    }
+
+    public float update(float measuredDegrees, long timestampNanos) {
+        if (!initialized) {
+            heading = normalize(measuredDegrees);
+            rate = 0;
+            lastNanos = timestampNanos;
+            initialized = true;
+            return heading;
+        }
+        float dt = (timestampNanos - lastNanos) * 1e-9f;
+        lastNanos = timestampNanos;
+        if (dt <= 0 || dt > 1f) {
+            // Gap in the stream (paused, batched flush): restart from the measurement
+            heading = normalize(measuredDegrees);
+            rate = 0;
+            return heading;
+        }
+
+        float predicted = heading + rate * dt;
+        float residual = wrap(measuredDegrees - predicted);
+        float alpha = timeConstant > 0 ? 1f - (float) Math.exp(-dt / timeConstant) : 1f;
+        float beta = alpha * alpha / (2f - alpha);
+
+        heading = normalize(predicted + alpha * residual);
+        rate += beta * residual / dt;
+        return heading;
+    }
+
+    public float getHeading() {
+        return heading;
+    }
+
+    // Estimated turn rate, deg/s
+    public float getRate() {
+        return rate;
+    }
+
+    // -180..180
+    static float wrap(float degrees) {
+        degrees %= 360f;
+        if (degrees > 180f) degrees -= 360f;
+        if (degrees < -180f) degrees += 360f;
+        return degrees;
+    }
+
+    // 0..360
+    static float normalize(float degrees) {
+        degrees %= 360f;
+        return degrees < 0 ? degrees + 360f : degrees;
+    }
+}
@@ -0,0 +1,323 @@
+package com.howling.radar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+// Append-only survey history: fixed 20-byte observation records in a memory-mapped file.
+//
+//   header  int magic, int version, long committedCount
+//   record  long timeMillis, long (mac << 16 | frequency), byte rssi, byte 0, char heading * 100
+//
+// Records are appended in time order, so a time range is two binary searches. Every
+// BLOCK_RECORDS records the block is sealed into a BSSID index (time span + sorted distinct
+// MACs), kept in a sidecar .idx file, and per-BSSID queries only read blocks that list the MAC.
+//
+// A MappedByteBuffer is int-indexed, so the file is mapped in SEGMENT_SIZE pieces and records are
+// addressed by long file offset -> (segment, offset within it). Each segment maps RECORD_SIZE past
+// its end, so a record is always read whole from the segment it starts in; only the last one grows.
+//
+// One writer thread appends; queries are safe from any thread. They read count before segments,
+// and the writer publishes bigger segments before bumping count, so every record they see is mapped.
+public class HistoryLog {
+    public interface Visitor {
+        void onRecord(long timeMillis, long mac, int rssi, int frequency, float heading);
+    }
+
+    public static final int RECORD_SIZE = 20;
+    public static final int BLOCK_RECORDS = 4096;
+
+    private static final int MAGIC = 0x48495354; // "HIST"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final long MAP_CHUNK = 4L << 20;
+    private static final long SEGMENT_SIZE = 1L << 28; // 256 MiB, ~13.4M records
+
+    private static final class Block {
+        final long minTime;
+        final long maxTime;
+        final long[] macs; // sorted, distinct
+
+        Block(long minTime, long maxTime, long[] macs) {
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.macs = macs;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final File indexFile;
+    private volatile MappedByteBuffer[] segments;
+    private volatile long count;
+    private volatile Block[] blocks = new Block[0];
+
+    // Writer-only state
+    private long lastTime;
+    private final long[] blockMacs = new long[BLOCK_RECORDS];
+    private int blockFill;
+    private int dirtyFrom;
+
+    private HistoryLog(File logFile) throws IOException {
+        file = new RandomAccessFile(logFile, "rw");
+        channel = file.getChannel();
+        indexFile = new File(logFile.getPath() + ".idx");
+    }
+
+    public static HistoryLog open(File logFile) throws IOException {
+        HistoryLog log = new HistoryLog(logFile);
+        try {
+            log.load();
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+        return log;
+    }
+
+    private void load() throws IOException {
+        boolean fresh = channel.size() < HEADER_SIZE;
+        long size = Math.max(channel.size(), HEADER_SIZE + MAP_CHUNK);
+        MappedByteBuffer[] segs = new MappedByteBuffer[(int) ((size - 1) / SEGMENT_SIZE) + 1];
+        for (int k = 0; k < segs.length; k++) {
+            segs[k] = mapSegment(k, Math.min(SEGMENT_SIZE + RECORD_SIZE, size - k * SEGMENT_SIZE));
+        }
+        segments = segs;
+
+        MappedByteBuffer header = segs[0];
+        if (fresh) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(8, 0);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a history log: " + file);
+        }
+
+        long committed = header.getLong(8);
+        long mapped = (segs.length - 1) * SEGMENT_SIZE + segs[segs.length - 1].capacity();
+        long fits = (mapped - HEADER_SIZE) / RECORD_SIZE;
+        count = Math.min(committed, fits);
+        if (count > 0) lastTime = timeAt(segs, count - 1);
+        dirtyFrom = segs.length - 1;
+
+        loadIndex();
+        // Blocks sealed after the last .idx write, then the open tail block
+        long sealed = count / BLOCK_RECORDS;
+        for (long b = blocks.length; b < sealed; b++) {
+            appendIndex(scanBlock(b * BLOCK_RECORDS, BLOCK_RECORDS));
+        }
+        blockFill = (int) (count - sealed * BLOCK_RECORDS);
+        for (int i = 0; i < blockFill; i++) {
+            blockMacs[i] = macAt(segs, sealed * BLOCK_RECORDS + i);
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        if (!indexFile.exists()) return;
+        long sealed = count / BLOCK_RECORDS;
+        Block[] loaded = new Block[(int) sealed];
+        int n = 0;
+        boolean stale = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            while (n < sealed && in.available() > 0) {
+                long minTime = in.readLong();
+                long maxTime = in.readLong();
+                long[] macs = new long[in.readInt()];
+                for (int i = 0; i < macs.length; i++) macs[i] = in.readLong();
+                loaded[n++] = new Block(minTime, maxTime, macs);
+            }
+            // Entries for blocks the log never committed (crash between the two writes)
+            stale = in.available() > 0;
+        } catch (IOException e) {
+            // Torn last entry: keep what parsed, the rest is rebuilt from the log
+            stale = true;
+        }
+        blocks = Arrays.copyOf(loaded, n);
+        if (stale) rewriteIndex();
+    }
+
+    private void rewriteIndex() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            for (Block block : blocks) writeBlock(out, block);
+        }
+    }
+
+    private static void writeBlock(DataOutputStream out, Block block) throws IOException {
+        out.writeLong(block.minTime);
+        out.writeLong(block.maxTime);
+        out.writeInt(block.macs.length);
+        for (long mac : block.macs) out.writeLong(mac);
+    }
+
+    private void appendIndex(Block block) throws IOException {
+        Block[] next = Arrays.copyOf(blocks, blocks.length + 1);
+        next[blocks.length] = block;
+        blocks = next;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+            writeBlock(out, block);
+        }
+    }
+
+    private Block scanBlock(long start, int n) {
+        MappedByteBuffer[] segs = segments;
+        long[] macs = new long[n];
+        for (int i = 0; i < n; i++) macs[i] = macAt(segs, start + i);
+        return new Block(timeAt(segs, start), timeAt(segs, start + n - 1), distinct(macs, n));
+    }
+
+    private static long[] distinct(long[] macs, int n) {
+        Arrays.sort(macs, 0, n);
+        int d = 0;
+        for (int i = 0; i < n; i++) {
+            if (d == 0 || macs[i] != macs[d - 1]) macs[d++] = macs[i];
+        }
+        return Arrays.copyOf(macs, d);
+    }
+
+    private MappedByteBuffer mapSegment(int k, long size) throws IOException {
+        MappedByteBuffer m = channel.map(FileChannel.MapMode.READ_WRITE, k * SEGMENT_SIZE, size);
+        m.order(ByteOrder.LITTLE_ENDIAN);
+        return m;
+    }
+
+    // Remaps segment k (the last one, or a new one after it) bigger, capped at its full size
+    private MappedByteBuffer[] grow(int k) throws IOException {
+        MappedByteBuffer[] segs = segments;
+        long cap = k < segs.length ? segs[k].capacity() : 0;
+        MappedByteBuffer[] next = Arrays.copyOf(segs, Math.max(segs.length, k + 1));
+        next[k] = mapSegment(k, Math.min(SEGMENT_SIZE + RECORD_SIZE, cap + Math.max(MAP_CHUNK, cap / 2)));
+        segments = next;
+        return next;
+    }
+
+    // Writer thread only. Time is clamped to be non-decreasing so range queries can binary search.
+    public void append(long timeMillis, long mac, int rssi, int frequency, float heading) throws IOException {
+        long offset = HEADER_SIZE + count * RECORD_SIZE;
+        int k = (int) (offset / SEGMENT_SIZE);
+        int o = (int) (offset % SEGMENT_SIZE);
+        MappedByteBuffer[] segs = segments;
+        if (k >= segs.length || o + RECORD_SIZE > segs[k].capacity()) segs = grow(k);
+        if (timeMillis < lastTime) timeMillis = lastTime;
+        lastTime = timeMillis;
+
+        MappedByteBuffer m = segs[k];
+        m.putLong(o, timeMillis);
+        m.putLong(o + 8, (mac << 16) | (frequency & 0xFFFF));
+        m.put(o + 16, (byte) Math.max(-128, Math.min(127, rssi)));
+        m.put(o + 17, (byte) 0);
+        m.putChar(o + 18, (char) Math.round(HeadingFilter.normalize(heading) * 100));
+        count++;
+
+        blockMacs[blockFill++] = mac;
+        if (blockFill == BLOCK_RECORDS) {
+            long start = count - BLOCK_RECORDS;
+            appendIndex(new Block(timeAt(segs, start), timeMillis, distinct(blockMacs, BLOCK_RECORDS)));
+            blockFill = 0;
+        }
+    }
+
+    // Writer thread only; makes everything appended so far survive a crash
+    public void commit() {
+        segments[0].putLong(8, count);
+    }
+
+    // Forces the header and the segments appended to since the last flush
+    public void flush() {
+        commit();
+        MappedByteBuffer[] segs = segments;
+        if (dirtyFrom > 0) segs[0].force();
+        for (int k = dirtyFrom; k < segs.length; k++) segs[k].force();
+        dirtyFrom = segs.length - 1;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    // All records with from <= time < to, oldest first. Returns how many were visited.
+    public int query(long fromMillis, long toMillis, Visitor visitor) {
+        long n = count;
+        MappedByteBuffer[] m = segments;
+        long start = lowerBound(m, 0, n, fromMillis);
+        long end = lowerBound(m, start, n, toMillis);
+        for (long i = start; i < end; i++) visit(m, i, visitor);
+        return (int) (end - start);
+    }
+
+    // Records for one BSSID in [from, to); sealed blocks without the MAC are skipped via the index
+    public int query(long mac, long fromMillis, long toMillis, Visitor visitor) {
+        long n = count;
+        MappedByteBuffer[] m = segments;
+        Block[] index = blocks;
+        int visited = 0;
+
+        for (int b = 0; b < index.length; b++) {
+            Block block = index[b];
+            if (block.maxTime < fromMillis || block.minTime >= toMillis) continue;
+            if (Arrays.binarySearch(block.macs, mac) < 0) continue;
+            visited += scan(m, (long) b * BLOCK_RECORDS, (long) (b + 1) * BLOCK_RECORDS, mac, fromMillis, toMillis, visitor);
+        }
+        // Unsealed tail has no index entry yet
+        long tailStart = Math.max((long) index.length * BLOCK_RECORDS, lowerBound(m, 0, n, fromMillis));
+        visited += scan(m, tailStart, n, mac, fromMillis, toMillis, visitor);
+        return visited;
+    }
+
+    private static int scan(MappedByteBuffer[] m, long start, long end, long mac, long from, long to, Visitor visitor) {
+        int visited = 0;
+        for (long i = start; i < end; i++) {
+            long time = timeAt(m, i);
+            if (time >= to) break;
+            if (time < from || macAt(m, i) != mac) continue;
+            visit(m, i, visitor);
+            visited++;
+        }
+        return visited;
+    }
+
+    private static void visit(MappedByteBuffer[] segs, long i, Visitor visitor) {
+        long offset = HEADER_SIZE + i * RECORD_SIZE;
+        MappedByteBuffer m = segs[(int) (offset / SEGMENT_SIZE)];
+        int o = (int) (offset % SEGMENT_SIZE);
+        long packed = m.getLong(o + 8);
+        visitor.onRecord(m.getLong(o), packed >>> 16, m.get(o + 16), (int) (packed & 0xFFFF), m.getChar(o + 18) / 100f);
+    }
+
+    // First record index in [lo, hi) with time >= t
+    private static long lowerBound(MappedByteBuffer[] m, long lo, long hi, long t) {
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (timeAt(m, mid) < t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static long timeAt(MappedByteBuffer[] segs, long i) {
+        return longAt(segs, HEADER_SIZE + i * RECORD_SIZE, 0);
+    }
+
+    private static long macAt(MappedByteBuffer[] segs, long i) {
+        return longAt(segs, HEADER_SIZE + i * RECORD_SIZE, 8) >>> 16;
+    }
+
+    private static long longAt(MappedByteBuffer[] segs, long recordOffset, int field) {
+        return segs[(int) (recordOffset / SEGMENT_SIZE)].getLong((int) (recordOffset % SEGMENT_SIZE) + field);
+    }
+
+    public void close() throws IOException {
+        if (segments != null) flush();
+        channel.close();
+        file.close();
+    }
+}
@@ -0,0 +1,55 @@
+package com.howling.radar;
+
+// Min/max/mean RSSI of each snapshot target over one time range of the history log, filled in a
+// single pass over the range (records are matched to targets through the snapshot's MAC index)
+// so the CSV and NDJSON exports can share it instead of querying the log once per target.
+public class HistoryStats {
+    private final ScanSnapshot snapshot;
+    private final long fromMillis;
+    private final long toMillis;
+    private final int[] count;
+    private final int[] min;
+    private final int[] max;
+    private final long[] sum;
+
+    public HistoryStats(ScanSnapshot snapshot, long fromMillis, long toMillis) {
+        this.snapshot = snapshot;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        int n = snapshot.count;
+        count = new int[n];
+        min = new int[n];
+        max = new int[n];
+        sum = new long[n];
+    }
+
+    // Records for MACs the snapshot doesn't track are ignored
+    public void add(long mac, int rssi) {
+        int i = snapshot.indexOf(mac);
+        if (i < 0) return;
+        if (count[i] == 0 || rssi < min[i]) min[i] = rssi;
+        if (count[i] == 0 || rssi > max[i]) max[i] = rssi;
+        count[i]++;
+        sum[i] += rssi;
+    }
+
+    public boolean covers(ScanSnapshot s, long from, long to) {
+        return s == snapshot && from == fromMillis && to == toMillis;
+    }
+
+    public int count(int i) {
+        return count[i];
+    }
+
+    public int min(int i) {
+        return min[i];
+    }
+
+    public int max(int i) {
+        return max[i];
+    }
+
+    public float mean(int i) {
+        return Math.round(sum[i] * 10f / count[i]) / 10f;
+    }
+}
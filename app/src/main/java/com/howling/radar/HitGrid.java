@@ -0,0 +1,98 @@
+package com.howling.radar;
+
+import java.util.Arrays;
+
+// Uniform screen-space grid for blip touch picking. The renderer adds each drawn blip per frame
+// (no allocation once the arrays have grown), and a touch only looks at the 3x3 cells around it.
+public class HitGrid {
+    // Blips closer together than this count as overlapping; the stronger signal wins
+    private static final float OVERLAP_PX = 12f;
+
+    private final float cellSize;
+    private int cols;
+    private int rows;
+    private int[] cellHead = new int[0];
+
+    // Entries, chained per cell through next[]
+    private int[] next = new int[64];
+    private int[] ids = new int[64];
+    private float[] xs = new float[64];
+    private float[] ys = new float[64];
+    private int[] strengths = new int[64];
+    private int count;
+
+    public HitGrid(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void reset(int width, int height) {
+        int c = Math.max(1, (int) Math.ceil(width / cellSize));
+        int r = Math.max(1, (int) Math.ceil(height / cellSize));
+        if (c * r > cellHead.length) cellHead = new int[c * r];
+        cols = c;
+        rows = r;
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(cellHead, 0, cols * rows, -1);
+        count = 0;
+    }
+
+    public void add(int id, float x, float y, int strength) {
+        int cx = (int) (x / cellSize);
+        int cy = (int) (y / cellSize);
+        if (x < 0 || y < 0 || cx >= cols || cy >= rows) return;
+
+        if (count == ids.length) grow();
+        int cell = cy * cols + cx;
+        ids[count] = id;
+        xs[count] = x;
+        ys[count] = y;
+        strengths[count] = strength;
+        next[count] = cellHead[cell];
+        cellHead[cell] = count;
+        count++;
+    }
+
+    // Id of the nearest blip within radius (radius <= cellSize), or -1
+    public int query(float x, float y, float radius) {
+        int cx = (int) Math.floor(x / cellSize);
+        int cy = (int) Math.floor(y / cellSize);
+        float r2 = radius * radius;
+        int best = -1;
+        float bestD2 = Float.MAX_VALUE;
+
+        for (int gy = Math.max(0, cy - 1); gy <= Math.min(rows - 1, cy + 1); gy++) {
+            for (int gx = Math.max(0, cx - 1); gx <= Math.min(cols - 1, cx + 1); gx++) {
+                for (int e = cellHead[gy * cols + gx]; e >= 0; e = next[e]) {
+                    float dx = xs[e] - x;
+                    float dy = ys[e] - y;
+                    float d2 = dx * dx + dy * dy;
+                    if (d2 >= r2) continue;
+                    if (best < 0 || isBetter(d2, strengths[e], bestD2, strengths[best])) {
+                        best = e;
+                        bestD2 = d2;
+                    }
+                }
+            }
+        }
+        return best >= 0 ? ids[best] : -1;
+    }
+
+    private static boolean isBetter(float d2, int strength, float bestD2, int bestStrength) {
+        float d = (float) Math.sqrt(d2);
+        float bestD = (float) Math.sqrt(bestD2);
+        if (Math.abs(d - bestD) < OVERLAP_PX) return strength > bestStrength;
+        return d < bestD;
+    }
+
+    private void grow() {
+        int cap = ids.length * 2;
+        next = Arrays.copyOf(next, cap);
+        ids = Arrays.copyOf(ids, cap);
+        xs = Arrays.copyOf(xs, cap);
+        ys = Arrays.copyOf(ys, cap);
+        strengths = Arrays.copyOf(strengths, cap);
+    }
+}
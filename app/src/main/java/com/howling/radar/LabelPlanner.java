@@ -0,0 +1,291 @@
+package com.howling.radar;
+
+import java.util.Arrays;
+
+// Level of detail for dense scans. Text is what makes a frame expensive, and with 100+ APs the
+// labels pile up into noise anyway, so:
+//   layout()  once per snapshot / radius: blips closer than CLUSTER_PX merge into one drawn blip
+//             led by the strongest, O(n log n) for the strength sort plus an O(n) grid pass
+//   plan()    once per frame: the best few leaders by strength, sweep recency and selection
+//             (bounded heap, O(n log maxLabels)) are placed best first, skipping any whose text
+//             would overlap an already placed label on a coarse occupancy grid, until maxLabels fit
+// Positions are in the rotated radar frame relative to the center. The whole canvas rotates with
+// the azimuth, so collisions there don't depend on it. Owned by the UI thread.
+public class LabelPlanner {
+    public static final int DEFAULT_MAX_LABELS = 24;
+    // Blips closer than this at the current radius are drawn as one
+    static final float CLUSTER_PX = 24f;
+    // Labels below this sweep alpha aren't drawn, so they don't compete for space
+    static final int MIN_LABEL_ALPHA = 16;
+    // Candidates tried per label slot; dense scenes lose most of the best ones to collisions
+    private static final int CANDIDATES_PER_LABEL = 4;
+
+    // Label block relative to its blip: name at (x + 25, y - 5), security at (x + 25, y + 20),
+    // cluster count under that
+    static final float LABEL_OFFSET_X = 25;
+    private static final float LABEL_TOP = -26;
+    private static final float LABEL_BOTTOM = 26;
+    private static final float LABEL_BOTTOM_CLUSTER = 48;
+
+    private static final float OCCUPANCY_CELL = 12f;
+    // Labels run right of the radar; cells past this are clamped to the edge column
+    private static final float OCCUPANCY_SPILL = 600f;
+
+    private int maxLabels = DEFAULT_MAX_LABELS;
+
+    public int count;
+    // Per slot (RenderModel / snapshot index), from layout()
+    public float[] x = new float[0];
+    public float[] y = new float[0];
+    // Slot drawn in this one's place; leader[i] == i for drawn blips
+    public int[] leader = new int[0];
+    // On leaders: blips merged into it (1 = just itself) and "+n" when more than one
+    public int[] clusterSize = new int[0];
+    public String[] clusterLabel = new String[0];
+    // 0..1 from the smoothed level, the base label priority
+    public float[] strength = new float[0];
+    // Widest text line in px, measured by the renderer after layout()
+    public float[] labelWidth = new float[0];
+
+    // Per frame: sweep alpha 0..255 written by the renderer, labels chosen by plan()
+    public int[] alpha = new int[0];
+    public boolean[] showLabel = new boolean[0];
+    private int[] shown = new int[0];
+    private int shownCount;
+
+    private ScanSnapshot laidOut;
+    private float laidOutRadius = -1;
+    private long[] sortKeys = new long[0];
+    private int[] nextInCell = new int[0];
+    private int[] clusterHead = new int[0];
+    private int clusterCols;
+
+    private int[] heapSlot = new int[DEFAULT_MAX_LABELS * CANDIDATES_PER_LABEL];
+    private float[] heapScore = new float[DEFAULT_MAX_LABELS * CANDIDATES_PER_LABEL];
+
+    private int[] occupied = new int[0];
+    private int occupancyCols;
+    private int occupancyRows;
+    private float occupancyOriginX;
+    private float occupancyOriginY;
+    private int generation;
+
+    public void setMaxLabels(int maxLabels) {
+        this.maxLabels = Math.max(0, maxLabels);
+        int candidates = this.maxLabels * CANDIDATES_PER_LABEL;
+        if (heapSlot.length < candidates) {
+            heapSlot = new int[candidates];
+            heapScore = new float[candidates];
+        }
+    }
+
+    public int getMaxLabels() {
+        return maxLabels;
+    }
+
+    public int getShownCount() {
+        return shownCount;
+    }
+
+    // True when layout() needs to run again; the renderer then re-measures labelWidth
+    public boolean needsLayout(RenderModel model, float radius) {
+        return model.snapshot != laidOut || radius != laidOutRadius;
+    }
+
+    public void layout(RenderModel model, float radius) {
+        laidOut = model.snapshot;
+        laidOutRadius = radius;
+        int n = model.count;
+        ensureCapacity(n);
+        count = n;
+        shownCount = 0;
+
+        // Strongest first, so each cluster is led by its strongest blip
+        for (int i = 0; i < n; i++) {
+            float d = model.distance[i] * radius;
+            x[i] = model.cos[i] * d;
+            y[i] = model.sin[i] * d;
+            float level = model.snapshot.smoothedLevel[i];
+            strength[i] = Math.min(1f, Math.max(0f, (100f + level) / 70f));
+            // Descending level, ties by slot; level * 16 keeps sub-dB order
+            sortKeys[i] = ((long) Math.round(-level * 16) << 32) | i;
+            alpha[i] = 0;
+            showLabel[i] = false;
+        }
+        Arrays.sort(sortKeys, 0, n);
+
+        float extent = radius + CLUSTER_PX;
+        clusterCols = Math.max(1, (int) Math.ceil(2 * extent / CLUSTER_PX) + 1);
+        int cells = clusterCols * clusterCols;
+        if (clusterHead.length < cells) clusterHead = new int[cells];
+        Arrays.fill(clusterHead, 0, cells, -1);
+
+        float limit = CLUSTER_PX * CLUSTER_PX;
+        for (int k = 0; k < n; k++) {
+            int i = (int) sortKeys[k];
+            int cx = clusterCell(x[i], extent);
+            int cy = clusterCell(y[i], extent);
+            int found = -1;
+            for (int gy = Math.max(0, cy - 1); gy <= Math.min(clusterCols - 1, cy + 1) && found < 0; gy++) {
+                for (int gx = Math.max(0, cx - 1); gx <= Math.min(clusterCols - 1, cx + 1) && found < 0; gx++) {
+                    for (int j = clusterHead[gy * clusterCols + gx]; j >= 0; j = nextInCell[j]) {
+                        float dx = x[j] - x[i];
+                        float dy = y[j] - y[i];
+                        if (dx * dx + dy * dy < limit) {
+                            found = j;
+                            break;
+                        }
+                    }
+                }
+            }
+            clusterLabel[i] = null;
+            if (found >= 0) {
+                leader[i] = found;
+                clusterSize[found]++;
+            } else {
+                leader[i] = i;
+                clusterSize[i] = 1;
+                int cell = cy * clusterCols + cx;
+                nextInCell[i] = clusterHead[cell];
+                clusterHead[cell] = i;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (leader[i] == i && clusterSize[i] > 1) clusterLabel[i] = "+" + (clusterSize[i] - 1);
+        }
+
+        occupancyOriginX = -extent;
+        occupancyOriginY = -extent - LABEL_BOTTOM_CLUSTER;
+        occupancyCols = (int) Math.ceil((2 * extent + OCCUPANCY_SPILL) / OCCUPANCY_CELL);
+        occupancyRows = (int) Math.ceil((2 * extent + 2 * LABEL_BOTTOM_CLUSTER) / OCCUPANCY_CELL);
+        if (occupied.length < occupancyCols * occupancyRows) {
+            occupied = new int[occupancyCols * occupancyRows];
+            generation = 0;
+        }
+    }
+
+    private int clusterCell(float v, float extent) {
+        int c = (int) ((v + extent) / CLUSTER_PX);
+        return Math.max(0, Math.min(clusterCols - 1, c));
+    }
+
+    // Picks this frame's labels from alpha[]; selectedSlot (or -1) always gets one
+    public void plan(int selectedSlot) {
+        for (int i = 0; i < shownCount; i++) showLabel[shown[i]] = false;
+        shownCount = 0;
+        if (maxLabels == 0) return;
+        int selectedLeader = selectedSlot >= 0 && selectedSlot < count ? leader[selectedSlot] : -1;
+
+        // Min-heap of the best candidates seen so far
+        int candidates = maxLabels * CANDIDATES_PER_LABEL;
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (leader[i] != i) continue;
+            if (alpha[i] < MIN_LABEL_ALPHA && i != selectedLeader) continue;
+            float score = i == selectedLeader ? 2f : 0.6f * strength[i] + 0.4f * (alpha[i] / 255f);
+            if (size < candidates) {
+                heapSlot[size] = i;
+                heapScore[size] = score;
+                siftUp(size++);
+            } else if (score > heapScore[0]) {
+                heapSlot[0] = i;
+                heapScore[0] = score;
+                siftDown(0, size);
+            }
+        }
+        // Heap sort in place: best ends up at index 0
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(occupied, 0);
+            generation = 1;
+        }
+        for (int k = 0; k < size && shownCount < maxLabels; k++) {
+            int i = heapSlot[k];
+            if (place(i)) {
+                showLabel[i] = true;
+                shown[shownCount++] = i;
+            }
+        }
+    }
+
+    // Claims the label's cells unless one is taken already
+    private boolean place(int i) {
+        float left = x[i] + LABEL_OFFSET_X;
+        float bottom = clusterLabel[i] != null ? LABEL_BOTTOM_CLUSTER : LABEL_BOTTOM;
+        int c0 = occupancyCol(left);
+        int c1 = occupancyCol(left + labelWidth[i]);
+        int r0 = occupancyRow(y[i] + LABEL_TOP);
+        int r1 = occupancyRow(y[i] + bottom);
+        for (int r = r0; r <= r1; r++) {
+            int base = r * occupancyCols;
+            for (int c = c0; c <= c1; c++) {
+                if (occupied[base + c] == generation) return false;
+            }
+        }
+        for (int r = r0; r <= r1; r++) {
+            int base = r * occupancyCols;
+            for (int c = c0; c <= c1; c++) occupied[base + c] = generation;
+        }
+        return true;
+    }
+
+    private int occupancyCol(float v) {
+        int c = (int) ((v - occupancyOriginX) / OCCUPANCY_CELL);
+        return Math.max(0, Math.min(occupancyCols - 1, c));
+    }
+
+    private int occupancyRow(float v) {
+        int r = (int) ((v - occupancyOriginY) / OCCUPANCY_CELL);
+        return Math.max(0, Math.min(occupancyRows - 1, r));
+    }
+
+    private void siftUp(int k) {
+        while (k > 0) {
+            int parent = (k - 1) >> 1;
+            if (heapScore[parent] <= heapScore[k]) return;
+            swap(parent, k);
+            k = parent;
+        }
+    }
+
+    private void siftDown(int k, int size) {
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= size) return;
+            if (child + 1 < size && heapScore[child + 1] < heapScore[child]) child++;
+            if (heapScore[k] <= heapScore[child]) return;
+            swap(k, child);
+            k = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int s = heapSlot[a];
+        heapSlot[a] = heapSlot[b];
+        heapSlot[b] = s;
+        float f = heapScore[a];
+        heapScore[a] = heapScore[b];
+        heapScore[b] = f;
+    }
+
+    private void ensureCapacity(int n) {
+        if (x.length >= n) return;
+        int cap = Math.max(n, x.length * 2);
+        x = Arrays.copyOf(x, cap);
+        y = Arrays.copyOf(y, cap);
+        leader = Arrays.copyOf(leader, cap);
+        clusterSize = Arrays.copyOf(clusterSize, cap);
+        clusterLabel = Arrays.copyOf(clusterLabel, cap);
+        strength = Arrays.copyOf(strength, cap);
+        labelWidth = Arrays.copyOf(labelWidth, cap);
+        alpha = Arrays.copyOf(alpha, cap);
+        showLabel = Arrays.copyOf(showLabel, cap);
+        shown = Arrays.copyOf(shown, cap);
+        sortKeys = Arrays.copyOf(sortKeys, cap);
+        nextInCell = Arrays.copyOf(nextInCell, cap);
+    }
+}
@@ -0,0 +1,110 @@
+package com.howling.radar;
+
+import java.util.Arrays;
+
+// Fixed-bucket latency histogram in the HdrHistogram style: 16 linear sub-buckets per power of
+// two, so any recorded value is within ~6% of its bucket bound, from 1 ns up to ~18 minutes in
+// 592 counters. record() is a few shifts and an increment, no allocation, no locking.
+// Single writer; other threads may read while it records and see slightly stale totals.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // 2^40 ns; longer values land in the last bucket
+    private static final int MAX_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        if (nanos > MAX_VALUE) nanos = MAX_VALUE;
+        counts[indexOf(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos < min) min = nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    // Largest value that maps to bucket index
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long low = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    // Upper bound of the bucket holding the p-th percentile (0..100), capped at the max seen
+    public long valueAtPercentile(double percentile) {
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    // "p50 4.1 p90 6.3 p99 12.0 max 31.5 ms (n 1234)"
+    public StringBuilder appendSummary(StringBuilder sb) {
+        sb.append("p50 ");
+        appendMillis(sb, valueAtPercentile(50));
+        sb.append(" p90 ");
+        appendMillis(sb, valueAtPercentile(90));
+        sb.append(" p99 ");
+        appendMillis(sb, valueAtPercentile(99));
+        sb.append(" max ");
+        appendMillis(sb, max);
+        return sb.append(" ms (n ").append(count).append(')');
+    }
+
+    // One "<=upper_ns count" line per non-empty bucket
+    public StringBuilder appendBuckets(StringBuilder sb) {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0) continue;
+            sb.append("  <=").append(upperBound(i)).append("ns ").append(counts[i]).append('\n');
+        }
+        return sb;
+    }
+
+    // Millis with one decimal, without String.format
+    static StringBuilder appendMillis(StringBuilder sb, long nanos) {
+        long tenths = (nanos + 50_000) / 100_000;
+        return sb.append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
@@ -0,0 +1,112 @@
+package com.howling.radar;
+
+import java.util.Arrays;
+
+// The channel occupancy the ingest thread maintains as APs come and go, in the same layout as
+// ChannelOccupancy. add() and remove() are exact inverses, so the aggregate can be kept up to
+// date incrementally. The peak needs a per-channel 1 dB level histogram to survive remove();
+// copy() drops it, giving an immutable ChannelOccupancy small enough to hand out with every snapshot.
+public class LiveChannelOccupancy {
+    // 2.4 GHz DSSS/OFDM masks are ~22 MHz wide on a 5 MHz grid
+    private static final int HALF_WIDTH_24_GHZ = 11;
+
+    // Histogram range; readings outside are clamped into the end buckets
+    private static final int LEVEL_MIN = -110;
+    private static final int LEVEL_MAX = -10;
+    private static final int LEVEL_BUCKETS = LEVEL_MAX - LEVEL_MIN + 1;
+
+    private final int[][] primary = new int[WifiChannel.MAX_CHANNEL.length][];
+    private final int[][] covering = new int[WifiChannel.MAX_CHANNEL.length][];
+    private final double[][] powerMw = new double[WifiChannel.MAX_CHANNEL.length][];
+    private final int[][] peakDbm = new int[WifiChannel.MAX_CHANNEL.length][];
+    // [band][ch * LEVEL_BUCKETS + bucket]
+    private final int[][] levelCounts = new int[WifiChannel.MAX_CHANNEL.length][];
+
+    public LiveChannelOccupancy() {
+        for (int b = 0; b < WifiChannel.MAX_CHANNEL.length; b++) {
+            int slots = WifiChannel.MAX_CHANNEL[b] + 1;
+            primary[b] = new int[slots];
+            covering[b] = new int[slots];
+            powerMw[b] = new double[slots];
+            peakDbm[b] = new int[slots];
+            Arrays.fill(peakDbm[b], ChannelOccupancy.NO_PEAK);
+            levelCounts[b] = new int[slots * LEVEL_BUCKETS];
+        }
+    }
+
+    public void add(int frequency, int widthCode, int centerFreq0, int centerFreq1, float levelDbm) {
+        apply(frequency, widthCode, centerFreq0, centerFreq1, levelDbm, 1);
+    }
+
+    public void remove(int frequency, int widthCode, int centerFreq0, int centerFreq1, float levelDbm) {
+        apply(frequency, widthCode, centerFreq0, centerFreq1, levelDbm, -1);
+    }
+
+    private void apply(int frequency, int widthCode, int centerFreq0, int centerFreq1, float levelDbm, int sign) {
+        int band = WifiChannel.band(frequency);
+        int channel = WifiChannel.channel(frequency);
+        if (band == WifiChannel.BAND_UNKNOWN || channel == 0) return;
+        primary[band][channel] += sign;
+
+        double mw = sign * Math.pow(10, levelDbm / 10);
+        int bucket = Math.max(LEVEL_MIN, Math.min(LEVEL_MAX, Math.round(levelDbm))) - LEVEL_MIN;
+        int segmentWidth = WifiChannel.segmentWidthMhz(widthCode);
+        int halfWidth = band == WifiChannel.BAND_24_GHZ && segmentWidth == 20 ? HALF_WIDTH_24_GHZ : segmentWidth / 2;
+        cover(band, WifiChannel.centerFreq(frequency, widthCode, centerFreq0), channel, halfWidth, mw, bucket, sign);
+        int second = WifiChannel.secondCenterFreq(widthCode, centerFreq1);
+        if (second > 0) cover(band, second, 0, halfWidth, mw, bucket, sign);
+    }
+
+    // Every channel number whose center is strictly inside centerFreq +- halfWidth
+    private void cover(int band, int centerFreq, int fallbackChannel, int halfWidth, double mw, int bucket, int sign) {
+        int center = WifiChannel.channel(centerFreq);
+        if (center == 0) center = fallbackChannel;
+        if (center == 0) return;
+        int reach = (halfWidth + 4) / 5 - 1;
+        int max = WifiChannel.MAX_CHANNEL[band];
+        for (int c = Math.max(1, center - reach); c <= Math.min(max, center + reach); c++) {
+            covering[band][c] += sign;
+            powerMw[band][c] += mw;
+            updatePeak(band, c, bucket, sign);
+        }
+    }
+
+    // Adding only raises the peak; removing the peak's last reading walks down to the next bucket
+    private void updatePeak(int band, int channel, int bucket, int sign) {
+        int[] counts = levelCounts[band];
+        int base = channel * LEVEL_BUCKETS;
+        counts[base + bucket] += sign;
+        int level = bucket + LEVEL_MIN;
+        if (sign > 0) {
+            if (level > peakDbm[band][channel]) peakDbm[band][channel] = level;
+        } else if (level == peakDbm[band][channel] && counts[base + bucket] <= 0) {
+            int peak = ChannelOccupancy.NO_PEAK;
+            for (int k = bucket - 1; k >= 0; k--) {
+                if (counts[base + k] > 0) {
+                    peak = k + LEVEL_MIN;
+                    break;
+                }
+            }
+            peakDbm[band][channel] = peak;
+        }
+    }
+
+    public void clear() {
+        for (int b = 0; b < primary.length; b++) {
+            Arrays.fill(primary[b], 0);
+            Arrays.fill(covering[b], 0);
+            Arrays.fill(powerMw[b], 0);
+            Arrays.fill(peakDbm[b], ChannelOccupancy.NO_PEAK);
+            Arrays.fill(levelCounts[b], 0);
+        }
+    }
+
+    public int covering(int band, int channel) {
+        return covering[band][channel];
+    }
+
+    // Immutable copy for a snapshot; the histogram stays behind
+    public ChannelOccupancy copy() {
+        return new ChannelOccupancy(primary, covering, powerMw, peakDbm);
+    }
+}
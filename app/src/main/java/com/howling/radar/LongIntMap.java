@@ -0,0 +1,106 @@
+package com.howling.radar;
+
+import java.util.Arrays;
+
+// Open-addressing long -> int map (linear probing, backward-shift delete).
+// Keys are 48-bit MACs, so -1 is free to mark empty slots; no boxing on get/put.
+public class LongIntMap {
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private final int missingValue;
+
+    public LongIntMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(long key) {
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : missingValue;
+    }
+
+    public boolean containsKey(long key) {
+        return keys[slotOf(key)] == key;
+    }
+
+    public void put(long key, int value) {
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            values[slot] = value;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 4 > keys.length * 3) rehash(keys.length << 1);
+    }
+
+    public int remove(long key) {
+        int slot = slotOf(key);
+        if (keys[slot] != key) return missingValue;
+        int old = values[slot];
+        size--;
+
+        // Shift the rest of the probe chain back so lookups never hit a hole
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    // Slot holding key, or the empty slot where it would go
+    private int slotOf(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,57 @@
+package com.howling.radar;
+
+// BSSID string <-> 48-bit long, parsed char by char so the hot paths never build Strings
+public class MacAddress {
+    public static final long INVALID = -1L;
+
+    // "CC:29:BD:66:D3:7E", "cc-29-bd-66-d3-7e" or "CC29BD66D37E" -> 0xCC29BD66D37EL
+    public static long parse(CharSequence bssid) {
+        if (bssid == null) return INVALID;
+        long mac = 0;
+        int digits = 0;
+        for (int i = 0; i < bssid.length(); i++) {
+            char c = bssid.charAt(i);
+            if (c == ':' || c == '-') continue;
+            int nibble = Character.digit(c, 16);
+            if (nibble < 0 || digits == 12) return INVALID;
+            mac = (mac << 4) | nibble;
+            digits++;
+        }
+        return digits == 12 ? mac : INVALID;
+    }
+
+    // Top 24 bits, the IEEE MA-L assignment
+    public static int oui(long mac) {
+        return (int) (mac >>> 24) & 0xFFFFFF;
+    }
+
+    // U/L bit of the first octet: randomized/private MACs and most virtual APs set it
+    public static boolean isLocallyAdministered(long mac) {
+        return (mac & 0x020000000000L) != 0;
+    }
+
+    public static boolean isMulticast(long mac) {
+        return (mac & 0x010000000000L) != 0;
+    }
+
+    public static String format(long mac) {
+        char[] out = new char[17];
+        for (int i = 0; i < 6; i++) {
+            int octet = (int) (mac >>> (40 - i * 8)) & 0xFF;
+            out[i * 3] = Character.toUpperCase(Character.forDigit(octet >>> 4, 16));
+            out[i * 3 + 1] = Character.toUpperCase(Character.forDigit(octet & 0xF, 16));
+            if (i < 5) out[i * 3 + 2] = ':';
+        }
+        return new String(out);
+    }
+
+    // Lowercase like ScanResult.BSSID, appended without an intermediate String
+    public static StringBuilder appendTo(StringBuilder sb, long mac) {
+        for (int i = 0; i < 6; i++) {
+            int octet = (int) (mac >>> (40 - i * 8)) & 0xFF;
+            sb.append(Character.forDigit(octet >>> 4, 16)).append(Character.forDigit(octet & 0xF, 16));
+            if (i < 5) sb.append(':');
+        }
+        return sb;
+    }
+}
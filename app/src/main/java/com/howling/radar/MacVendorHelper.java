@@ -1,59 +1,109 @@
 package com.howling.radar;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
 import android.util.Log;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class MacVendorHelper {
-    private static final Map<String, String> macDb = new HashMap<>();
     private static final String TAG = "RadarVendor";
+    private static final String INDEX_ASSET = "oui.idx";
 
-    public static void loadDatabase(Context context) {
-        if (!macDb.isEmpty()) return;
-
-        try {
-            // Assets ထဲက oui.db ကို ဖတ်မယ်
-            BufferedReader reader = new BufferedReader(
-                new InputStreamReader(context.getAssets().open("oui.db"))
-            );
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.contains("|")) {
-                    String[] parts = line.split("\\|");
-                    if (parts.length >= 2) {
-                        // Key ကို UpperCase ပြောင်းပြီး သိမ်းမယ်
-                        macDb.put(parts[0].trim().toUpperCase(), parts[1].trim());
-                    }
-                }
+    private static final Executor LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "RadarVendor-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static volatile Exception loadError;
+    private static volatile long loadTimeNanos;
+    private static CompletableFuture<OuiIndex> loadFuture;
+
+    static {
+        // Log ထုတ်ပြီး စစ်ကြည့်မယ် (Terminal မှာ 'adb logcat -s RadarVendor' နဲ့ကြည့်ပါ)
+        VendorLookup.setMissListener((oui, misses) ->
+                Log.d(TAG, "Not found in DB: " + String.format("%06X", oui) + " (misses: " + misses + ")"));
+    }
+
+    // Loads oui.idx on a background thread; the UI never waits for it
+    public static synchronized CompletableFuture<OuiIndex> loadDatabaseAsync(Context context) {
+        if (loadFuture != null && loadError == null) return loadFuture;
+
+        final AssetManager assets = context.getApplicationContext().getAssets();
+        final CompletableFuture<OuiIndex> future = new CompletableFuture<>();
+        loadFuture = future;
+        loadError = null;
+        LOADER.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                // oui.idx is generated at build time (compileOuiIndex), so just map it
+                OuiIndex index = OuiIndex.wrap(mapAsset(assets, INDEX_ASSET));
+                loadTimeNanos = System.nanoTime() - start;
+                VendorLookup.install(index);
+                Log.d(TAG, "Database successfully loaded! Total: " + index.size()
+                        + " in " + getLoadTimeMillis() + " ms");
+                future.complete(index);
+            } catch (Exception e) {
+                loadError = e;
+                VendorLookup.fail();
+                Log.e(TAG, "Critical error loading " + INDEX_ASSET + ": " + e.getMessage());
+                future.completeExceptionally(e);
             }
-            reader.close();
-            Log.d(TAG, "Database successfully loaded! Total: " + macDb.size());
-        } catch (Exception e) {
-            Log.e(TAG, "Critical error loading oui.db: " + e.getMessage());
-        }
+        });
+        return future;
     }
 
-    public static String getVendor(String bssid) {
-        if (bssid == null || bssid.length() < 8) return "Unknown";
-
-        // BSSID: "CC:29:BD:66:D3:7E" -> "CC29BD"
-        String cleanMac = bssid.replace(":", "").toUpperCase();
-        
-        if (cleanMac.length() >= 6) {
-            String prefix = cleanMac.substring(0, 6);
-            
-            // Log ထုတ်ပြီး စစ်ကြည့်မယ် (Terminal မှာ 'adb logcat -s RadarVendor' နဲ့ကြည့်ပါ)
-            String found = macDb.get(prefix);
-            if (found != null) {
-                return found;
-            } else {
-                Log.d(TAG, "Not found in DB: " + prefix);
+    public static boolean isLoaded() {
+        return VendorLookup.isLoaded();
+    }
+
+    public static int getEntryCount() {
+        return VendorLookup.getEntryCount();
+    }
+
+    public static long getLoadTimeMillis() {
+        return loadTimeNanos / 1_000_000L;
+    }
+
+    private static ByteBuffer mapAsset(AssetManager assets, String name) throws IOException {
+        try (AssetFileDescriptor afd = assets.openFd(name);
+             FileInputStream in = afd.createInputStream()) {
+            return in.getChannel().map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getLength());
+        } catch (FileNotFoundException e) {
+            // openFd only works on uncompressed assets; copy into the heap otherwise
+            try (InputStream in = assets.open(name)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[16 * 1024];
+                int n;
+                while ((n = in.read(buffer)) != -1) bytes.write(buffer, 0, n);
+                return ByteBuffer.wrap(bytes.toByteArray());
             }
         }
-        return "Unknown";
     }
-}
\ No newline at end of file
+
+    public static String getVendor(String bssid) {
+        return VendorLookup.getVendor(bssid);
+    }
+
+    public static String getVendor(long mac) {
+        return VendorLookup.getVendor(mac);
+    }
+
+    public static String getVendorByOui(int oui) {
+        return VendorLookup.getVendorByOui(oui);
+    }
+
+    public static long getMissCount() {
+        return VendorLookup.getMissCount();
+    }
+}
@@ -1,43 +1,69 @@
 package com.howling.radar;
 
 import android.Manifest;
-import android.annotation.SuppressLint;
 import android.app.Activity;
-import android.content.BroadcastReceiver;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
+import android.content.ServiceConnection;
 import android.content.pm.PackageManager;
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
-import android.hardware.SensorManager;
-import android.net.wifi.WifiManager;
+import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.IBinder;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.util.Log;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.Toast;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class MainActivity extends Activity implements SensorEventListener {
+// Intent extras for performance work (adb shell am start -n com.howling.radar/.MainActivity ...):
+//   --ez record true          record this live session to files/traces/session-<time>.trace
+//   --es replay <path>        replay a trace instead of scanning and reading the sensors
+//   --ef replaySpeed <x>      1 = recorded pace (default), 0 = as fast as the pipeline allows
+//   --ez replayLoop true      start over at the end of the trace
+public class MainActivity extends Activity {
+    private static final String TAG = "MainActivity";
+    public static final String EXTRA_RECORD = "record";
+    public static final String EXTRA_REPLAY = "replay";
+    public static final String EXTRA_REPLAY_SPEED = "replaySpeed";
+    public static final String EXTRA_REPLAY_LOOP = "replayLoop";
     private RadarView radarView;
-    private SensorManager sensorManager;
-    private WifiManager wifiManager;
-    private float[] gravity = new float[3];
-    private float[] geomagnetic = new float[3];
-    private float currentAzimuth = 0;
 
-    private final Handler scanHandler = new Handler(Looper.getMainLooper());
-    private static final int SCAN_INTERVAL = 10000;
+    // Live: SurveyService owns scanning, sensors and history; bound for the activity's lifetime,
+    // attached while visible. Null until connected, and in replay mode.
+    private SurveyService survey;
+    private boolean bound;
+    private boolean recordRequested;
+    // Between onStart and onStop
+    private boolean isVisible;
+    // The service's ingestor once connected, or the replay's own
+    private ScanIngestor scanIngestor;
+    private static final int BATTERY_SAVER_FPS = 30;
+    // Android dims the screen for the last few seconds before the screen-off timeout
+    private static final long DIM_LEAD = 7_000;
+    private final RadarStats stats = new RadarStats();
+    // Running export (CSV then NDJSON); touched on the UI thread only
+    private SurveyExporter[] exporters;
+    // Replay mode only: the trace stands in for WifiManager and the orientation sensors
+    private TracePlayer tracePlayer;
+    private volatile float replayAzimuth;
+    private final AtomicBoolean replayHeadingPosted = new AtomicBoolean();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         
-        // --- အရေးကြီးဆုံးအပိုင်း- Database ကို Load လုပ်ခြင်း ---
-        MacVendorHelper.loadDatabase(this); 
-        
         // Full Screen Code
         getWindow().setFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN,
                 WindowManager.LayoutParams.FLAG_FULLSCREEN);
@@ -46,16 +72,153 @@ public class MainActivity extends Activity implements SensorEventListener {
         setContentView(R.layout.activity_main);
 
         radarView = findViewById(R.id.radarView);
-        sensorManager = (SensorManager) getSystemService(SENSOR_SERVICE);
-        wifiManager = (WifiManager) getApplicationContext().getSystemService(Context.WIFI_SERVICE);
 
+        // --- အရေးကြီးဆုံးအပိုင်း- Database ကို Load လုပ်ခြင်း ---
+        // Background load; the popup shows "Loading..." until it lands, then redraws
+        MacVendorHelper.loadDatabaseAsync(this).whenComplete((db, error) -> radarView.postInvalidate());
+        // Popup open: heading barely matters, drop the sensors to the low-rate mode
+        radarView.setPopupListener(open -> {
+            if (survey != null) survey.setPopupOpen(open);
+        });
+        // Same for the channel chart, where heading only stamps the history log
+        radarView.setModeListener(mode -> {
+            if (survey != null) survey.setChartShown(mode == RadarView.MODE_CHANNELS);
+        });
+        // Tap the top-right HUD for the frame/scan timings; dumped to a file on pause
+        radarView.setStats(stats);
+        // Long press on empty radar space: export the survey, or cancel a running export
+        radarView.setOnLongClickListener(v -> {
+            toggleExport();
+            return true;
+        });
+
+        String replay = getIntent().getStringExtra(EXTRA_REPLAY);
+        if (replay != null) {
+            // A replay stays out of the survey history and never touches the service
+            tracePlayer = new TracePlayer(new File(replay), getIntent().getFloatExtra(EXTRA_REPLAY_SPEED, 1f),
+                    getIntent().getBooleanExtra(EXTRA_REPLAY_LOOP, false), replayListener);
+            scanIngestor = new ScanIngestor(tracePlayer);
+            scanIngestor.setConsumer(radarView::updateBlips);
+            scanIngestor.setStats(stats);
+            tracePlayer.start();
+            return;
+        }
+
+        // Tap SYSTEM in the HUD: keep surveying with the radar closed, or stop
+        radarView.setSurveyListener(this::toggleSurvey);
+        recordRequested = getIntent().getBooleanExtra(EXTRA_RECORD, false);
+        bound = bindService(new Intent(this, SurveyService.class), surveyConnection, Context.BIND_AUTO_CREATE);
         if (checkSelfPermission(Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
             requestPermissions(new String[]{Manifest.permission.ACCESS_FINE_LOCATION}, 1001);
-        } else {
-            startScanning();
         }
     }
-    
+
+    private final ServiceConnection surveyConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            survey = ((SurveyService.LocalBinder) binder).getService();
+            scanIngestor = survey.getIngestor();
+            survey.setStats(stats);
+            survey.setChartShown(radarView.getMode() == RadarView.MODE_CHANNELS);
+            radarView.setSurveying(survey.isSurveying());
+            if (checkSelfPermission(Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+                survey.setScanPermitted();
+            }
+            if (recordRequested) {
+                recordRequested = false;
+                startRecording();
+            }
+            if (isVisible) survey.attach(surveyClient);
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            survey = null;
+            scanIngestor = null;
+        }
+    };
+
+    private final SurveyService.Client surveyClient = new SurveyService.Client() {
+        @Override
+        public void onSnapshot(ScanSnapshot snapshot) {
+            radarView.updateBlips(snapshot);
+        }
+
+        @Override
+        public void onAzimuthChanged(float azimuth) {
+            radarView.setAzimuth(azimuth);
+        }
+
+        @Override
+        public void onSurveyChanged(boolean surveying) {
+            radarView.setSurveying(surveying);
+        }
+    };
+
+    private void toggleSurvey() {
+        if (survey == null) return;
+        if (survey.isSurveying()) {
+            survey.stopSurvey();
+            Toast.makeText(this, "Survey stopped", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (checkSelfPermission(Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Toast.makeText(this, "Survey needs the location permission", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        // Without it the survey still runs, only its notification is hidden
+        if (Build.VERSION.SDK_INT >= 33
+                && checkSelfPermission(Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            requestPermissions(new String[]{Manifest.permission.POST_NOTIFICATIONS}, 1002);
+        }
+        Intent intent = new Intent(this, SurveyService.class).setAction(SurveyService.ACTION_START_SURVEY);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) startForegroundService(intent);
+        else startService(intent);
+        Toast.makeText(this, "Surveying in the background (tap SYSTEM to stop)", Toast.LENGTH_SHORT).show();
+    }
+
+    private void startRecording() {
+        File dir = getExternalFilesDir("traces");
+        if (dir == null) {
+            Toast.makeText(this, "Trace storage unavailable", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File trace = new File(dir, "session-" + stamp + ".trace");
+        scanIngestor.startRecording(trace);
+        Toast.makeText(this, "Recording to " + trace.getPath(), Toast.LENGTH_SHORT).show();
+    }
+
+    // Player thread callbacks; headings are coalesced to one UI post at a time
+    private final TracePlayer.Listener replayListener = new TracePlayer.Listener() {
+        @Override
+        public void onScanReady() {
+            scanIngestor.requestIngest(SystemClock.elapsedRealtimeNanos());
+        }
+
+        @Override
+        public void onHeading(float azimuth) {
+            replayAzimuth = azimuth;
+            if (replayHeadingPosted.compareAndSet(false, true)) radarView.post(replayHeadingRunnable);
+        }
+
+        @Override
+        public void onFinished(IOException error) {
+            runOnUiThread(() -> {
+                if (error != null) Log.e(TAG, "Replay failed", error);
+                Toast.makeText(MainActivity.this, error == null ? "Replay finished" : "Replay failed: " + error.getMessage(),
+                        Toast.LENGTH_LONG).show();
+            });
+        }
+    };
+
+    private final Runnable replayHeadingRunnable = () -> {
+        replayHeadingPosted.set(false);
+        float azimuth = replayAzimuth;
+        radarView.setAzimuth(azimuth);
+        scanIngestor.setHeading(azimuth);
+    };
+
     private void hideSystemUI() {
         View decorView = getWindow().getDecorView();
         decorView.setSystemUiVisibility(
@@ -67,92 +230,129 @@ public class MainActivity extends Activity implements SensorEventListener {
                 | View.SYSTEM_UI_FLAG_FULLSCREEN);
     }
 
-    private final BroadcastReceiver wifiReceiver = new BroadcastReceiver() {
-        @Override
-        @SuppressLint("MissingPermission")
-        public void onReceive(Context context, Intent intent) {
-            boolean success = intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, false);
-            if (success) {
-                radarView.updateBlips(wifiManager.getScanResults());
-            }
+    @Override
+    public void onRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
+        if (requestCode != 1001) return;
+        if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+            if (survey != null) survey.setScanPermitted();
+        } else {
+            Toast.makeText(this, "Permission Denied", Toast.LENGTH_SHORT).show();
         }
-    };
+    }
 
-    private void startScanning() {
-        IntentFilter intentFilter = new IntentFilter();
-        intentFilter.addAction(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION);
-        registerReceiver(wifiReceiver, intentFilter);
-        scanHandler.post(scanRunnable);
+    private void toggleExport() {
+        if (exporters != null) {
+            for (SurveyExporter e : exporters) e.cancel();
+            return;
+        }
+        if (scanIngestor == null) return;
+        File dir = getExternalFilesDir("exports");
+        if (dir == null) {
+            Toast.makeText(this, "Export storage unavailable", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File csv = new File(dir, "survey-" + stamp + ".csv");
+        File ndjson = new File(dir, "survey-" + stamp + ".ndjson");
+        ScanSnapshot snapshot = scanIngestor.getSnapshot();
+        HistoryLog history = scanIngestor.getHistory();
+        SurveyExporter csvExporter = new SurveyExporter(SurveyExporter.FORMAT_CSV);
+        SurveyExporter ndjsonExporter = new SurveyExporter(SurveyExporter.FORMAT_NDJSON);
+        exporters = new SurveyExporter[]{csvExporter, ndjsonExporter};
+
+        Toast.makeText(this, "Exporting survey... (long press to cancel)", Toast.LENGTH_SHORT).show();
+        // Vendor names come from the OUI index, so let it finish loading first
+        MacVendorHelper.loadDatabaseAsync(this)
+                .handle((db, error) -> null)
+                .thenCompose(ignored -> exportTo(csvExporter, csv, snapshot, history, null))
+                // Same snapshot and range, so the history stats pass isn't repeated
+                .thenCompose(rows -> exportTo(ndjsonExporter, ndjson, snapshot, history, csvExporter.getHistoryStats()))
+                .whenComplete((rows, error) -> runOnUiThread(() -> {
+                    exporters = null;
+                    String message;
+                    if (error == null) {
+                        message = "Exported " + rows + " rows to " + dir.getPath();
+                    } else if (error.getCause() instanceof CancellationException) {
+                        message = "Export cancelled";
+                        csv.delete();
+                        ndjson.delete();
+                    } else {
+                        Log.e(TAG, "Export failed", error);
+                        message = "Export failed: " + error.getCause().getMessage();
+                    }
+                    Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+                }));
     }
 
-    private final Runnable scanRunnable = new Runnable() {
-        @Override
-        public void run() {
-            wifiManager.startScan();
-            scanHandler.postDelayed(this, SCAN_INTERVAL);
+    private static CompletableFuture<Long> exportTo(SurveyExporter exporter, File file,
+                                                    ScanSnapshot snapshot, HistoryLog history, HistoryStats stats) {
+        exporter.setProgressListener((done, total) -> Log.d(TAG, file.getName() + ": " + done + "/" + total));
+        try {
+            return exporter.exportAsync(snapshot, history, stats, 0, Long.MAX_VALUE, new FileOutputStream(file).getChannel());
+        } catch (IOException e) {
+            CompletableFuture<Long> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
         }
+    }
+
+    private final Runnable dimRunnable = () -> {
+        if (survey != null) survey.setScreenDimmed(true);
     };
 
     @Override
-    public void onRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
-        if (requestCode == 1001 && grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
-            startScanning();
-        } else {
-            Toast.makeText(this, "Permission Denied", Toast.LENGTH_SHORT).show();
-        }
+    public void onUserInteraction() {
+        super.onUserInteraction();
+        if (survey != null) survey.setScreenDimmed(false);
+        scheduleDimCheck();
+    }
+
+    private void scheduleDimCheck() {
+        radarView.removeCallbacks(dimRunnable);
+        long timeout = Settings.System.getInt(getContentResolver(), Settings.System.SCREEN_OFF_TIMEOUT, 30_000);
+        radarView.postDelayed(dimRunnable, Math.max(timeout / 2, timeout - DIM_LEAD));
     }
 
     @Override
-    public void onSensorChanged(SensorEvent event) {
-        final float alpha = 0.97f;
-
-        if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-            gravity[0] = alpha * gravity[0] + (1 - alpha) * event.values[0];
-            gravity[1] = alpha * gravity[1] + (1 - alpha) * event.values[1];
-            gravity[2] = alpha * gravity[2] + (1 - alpha) * event.values[2];
-        }
-        if (event.sensor.getType() == Sensor.TYPE_MAGNETIC_FIELD) {
-            geomagnetic[0] = alpha * geomagnetic[0] + (1 - alpha) * event.values[0];
-            geomagnetic[1] = alpha * geomagnetic[1] + (1 - alpha) * event.values[1];
-            geomagnetic[2] = alpha * geomagnetic[2] + (1 - alpha) * event.values[2];
-        }
-
-        float[] R = new float[9];
-        float[] I = new float[9];
-        if (SensorManager.getRotationMatrix(R, I, gravity, geomagnetic)) {
-            float[] orientation = new float[3];
-            SensorManager.getOrientation(R, orientation);
-            float azimuth = (float) Math.toDegrees(orientation[0]);
-            azimuth = (azimuth + 360) % 360; 
-
-            float diff = azimuth - currentAzimuth;
-            if (diff < -180) diff += 360;
-            if (diff > 180) diff -= 360;
-            
-            currentAzimuth += 0.1f * diff; 
-            radarView.setAzimuth(currentAzimuth);
-        }
+    protected void onStart() {
+        super.onStart();
+        isVisible = true;
+        if (survey != null) survey.attach(surveyClient);
     }
 
+    // Detached, the service stops scanning unless a survey is running
     @Override
-    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+    protected void onStop() {
+        super.onStop();
+        isVisible = false;
+        if (survey != null) survey.detach();
+    }
 
     @Override
     protected void onResume() {
         super.onResume();
         hideSystemUI();
-        sensorManager.registerListener(this, sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER), SensorManager.SENSOR_DELAY_GAME);
-        sensorManager.registerListener(this, sensorManager.getDefaultSensor(Sensor.TYPE_MAGNETIC_FIELD), SensorManager.SENSOR_DELAY_GAME);
-        if(checkSelfPermission(Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-            try { registerReceiver(wifiReceiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION)); } catch (Exception e) {}
-        }
+        PowerManager powerManager = (PowerManager) getSystemService(POWER_SERVICE);
+        radarView.setTargetFps(powerManager != null && powerManager.isPowerSaveMode() ? BATTERY_SAVER_FPS : 0);
+        scheduleDimCheck();
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        sensorManager.unregisterListener(this);
-        try { unregisterReceiver(wifiReceiver); } catch (Exception e) {}
-        scanHandler.removeCallbacks(scanRunnable);
+        radarView.removeCallbacks(dimRunnable);
+        File statsDir = getExternalFilesDir("stats");
+        if (statsDir != null) stats.dumpAsync(new File(statsDir, "radar_stats.txt"));
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (tracePlayer != null) {
+            tracePlayer.stop();
+            scanIngestor.quit();
+        }
+        // A running survey keeps the service alive; otherwise this stops it
+        if (bound) unbindService(surveyConnection);
     }
 }
\ No newline at end of file
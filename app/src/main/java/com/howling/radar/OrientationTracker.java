@@ -0,0 +1,270 @@
+package com.howling.radar;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+import java.util.Locale;
+
+// Device heading for the radar. Prefers the OS-fused TYPE_ROTATION_VECTOR, then
+// TYPE_GAME_ROTATION_VECTOR (gyro) anchored to magnetic north by accel+mag, and finally the raw
+// accel+mag path. All math runs in reused buffers, and the listener hears at most once per frame.
+// Without a UI there are no frames to pace by (SurveyService with the activity closed), so
+// setFramePaced(false) hands every filtered heading straight to the listener instead.
+public class OrientationTracker implements SensorEventListener, Choreographer.FrameCallback {
+    private static final String TAG = "OrientationTracker";
+
+    public interface Listener {
+        void onAzimuthChanged(float azimuth);
+    }
+
+    public static final int MODE_NONE = 0;
+    public static final int MODE_ROTATION_VECTOR = 1;
+    public static final int MODE_GAME_ROTATION_VECTOR = 2;
+    public static final int MODE_ACCEL_MAG = 3;
+
+    // Filter latency per source: the fused vectors are already clean, accel+mag is not
+    private static final float FUSED_TIME_CONSTANT = 0.05f;
+    private static final float ACCEL_MAG_TIME_CONSTANT = 0.25f;
+    // How fast the gyro heading is pulled onto magnetic north (seconds)
+    private static final float NORTH_CORRECTION_TIME_CONSTANT = 2.0f;
+    private static final float GRAVITY_ALPHA = 0.8f;
+
+    private final SensorManager sensorManager;
+    private final Listener listener;
+    private final HeadingFilter filter = new HeadingFilter(FUSED_TIME_CONSTANT);
+
+    private final float[] rotation = new float[9];
+    private final float[] orientation = new float[3];
+    private final float[] gravity = new float[3];
+    private final float[] geomagnetic = new float[3];
+    private boolean hasGravity;
+    private boolean hasGeomagnetic;
+
+    // GAME_ROTATION_VECTOR mode: magnetic heading minus gyro yaw, slowly corrected
+    private float northOffset;
+    private boolean hasNorthOffset;
+    private float gameYaw;
+    private boolean hasGameYaw;
+    private long lastOffsetNanos;
+
+    private final SensorRatePolicy ratePolicy = new SensorRatePolicy();
+    private final EventRateMeter rateMeter = new EventRateMeter();
+    private Sensor[] sensors = new Sensor[0];
+    private boolean batching;
+
+    private int mode = MODE_NONE;
+    private float azimuth;
+    private boolean framePaced = true;
+    private boolean framePosted;
+
+    public OrientationTracker(SensorManager sensorManager, Listener listener) {
+        this.sensorManager = sensorManager;
+        this.listener = listener;
+    }
+
+    // Rate is chosen by the SensorRatePolicy and changes while running
+    public int start() {
+        stop();
+        Sensor accel = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+        Sensor mag = sensorManager.getDefaultSensor(Sensor.TYPE_MAGNETIC_FIELD);
+        Sensor rotationVector = sensorManager.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
+        Sensor gameRotationVector = sensorManager.getDefaultSensor(Sensor.TYPE_GAME_ROTATION_VECTOR);
+
+        if (rotationVector != null) {
+            mode = MODE_ROTATION_VECTOR;
+            filter.setTimeConstant(FUSED_TIME_CONSTANT);
+            sensors = new Sensor[]{rotationVector};
+        } else if (gameRotationVector != null && accel != null && mag != null) {
+            mode = MODE_GAME_ROTATION_VECTOR;
+            filter.setTimeConstant(FUSED_TIME_CONSTANT);
+            sensors = new Sensor[]{gameRotationVector, accel, mag};
+        } else if (accel != null && mag != null) {
+            mode = MODE_ACCEL_MAG;
+            filter.setTimeConstant(ACCEL_MAG_TIME_CONSTANT);
+            sensors = new Sensor[]{accel, mag};
+        } else {
+            sensors = new Sensor[0];
+        }
+        ratePolicy.reset(SystemClock.uptimeMillis());
+        register();
+        return mode;
+    }
+
+    public void stop() {
+        if (mode != MODE_NONE) {
+            Log.i(TAG, "stopped: " + rateMeter.getTotalEvents() + " headings, avg "
+                    + String.format(Locale.US, "%.1f", rateMeter.getAverageRate()) + "/s");
+        }
+        sensorManager.unregisterListener(this);
+        if (framePosted) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            framePosted = false;
+        }
+        mode = MODE_NONE;
+        filter.reset();
+        rateMeter.reset();
+        hasGravity = false;
+        hasGeomagnetic = false;
+        hasNorthOffset = false;
+        hasGameYaw = false;
+    }
+
+    // Re-registering keeps the filter state; only the delivery rate and batching change
+    private void register() {
+        sensorManager.unregisterListener(this);
+        int periodUs = ratePolicy.getPeriodUs();
+        int latencyUs = ratePolicy.getMaxReportLatencyUs();
+        batching = false;
+        for (Sensor sensor : sensors) {
+            // maxReportLatencyUs is ignored by sensors without a FIFO
+            sensorManager.registerListener(this, sensor, periodUs, latencyUs);
+            if (sensor.getFifoMaxEventCount() > 0 && latencyUs > 0) batching = true;
+        }
+        Log.d(TAG, "rate " + SensorRatePolicy.modeName(ratePolicy.getMode()) + " period=" + periodUs
+                + "us latency=" + latencyUs + "us batching=" + batching);
+    }
+
+    public void setPopupOpen(boolean open) {
+        if (ratePolicy.setPopupOpen(SystemClock.uptimeMillis(), open) && mode != MODE_NONE) register();
+    }
+
+    public void setScreenDimmed(boolean dimmed) {
+        if (ratePolicy.setScreenDimmed(SystemClock.uptimeMillis(), dimmed) && mode != MODE_NONE) register();
+    }
+
+    public void setChartShown(boolean shown) {
+        if (ratePolicy.setChartShown(SystemClock.uptimeMillis(), shown) && mode != MODE_NONE) register();
+    }
+
+    public void setBackground(boolean background) {
+        if (ratePolicy.setBackground(SystemClock.uptimeMillis(), background) && mode != MODE_NONE) register();
+    }
+
+    public void setFramePaced(boolean paced) {
+        framePaced = paced;
+        if (!paced && framePosted) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            framePosted = false;
+        }
+    }
+
+    public int getRateMode() {
+        return ratePolicy.getMode();
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
+    // Heading events actually delivered per second (last window), after rate control and batching
+    public float getDeliveredRate() {
+        return rateMeter.getRate();
+    }
+
+    public long getDeliveredEvents() {
+        return rateMeter.getTotalEvents();
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    public float getAzimuth() {
+        return azimuth;
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        switch (event.sensor.getType()) {
+            case Sensor.TYPE_ROTATION_VECTOR:
+                onHeading(yawFromVector(event.values), event.timestamp);
+                break;
+            case Sensor.TYPE_GAME_ROTATION_VECTOR:
+                gameYaw = yawFromVector(event.values);
+                hasGameYaw = true;
+                if (hasNorthOffset) onHeading(gameYaw + northOffset, event.timestamp);
+                break;
+            case Sensor.TYPE_ACCELEROMETER:
+                lowPass(event.values, gravity, hasGravity);
+                hasGravity = true;
+                break;
+            case Sensor.TYPE_MAGNETIC_FIELD:
+                lowPass(event.values, geomagnetic, hasGeomagnetic);
+                hasGeomagnetic = true;
+                onMagneticSample(event.timestamp);
+                break;
+        }
+    }
+
+    private void onMagneticSample(long timestampNanos) {
+        if (!hasGravity || !SensorManager.getRotationMatrix(rotation, null, gravity, geomagnetic)) return;
+        SensorManager.getOrientation(rotation, orientation);
+        float magneticHeading = (float) Math.toDegrees(orientation[0]);
+
+        if (mode == MODE_ACCEL_MAG) {
+            onHeading(magneticHeading, timestampNanos);
+        } else if (mode == MODE_GAME_ROTATION_VECTOR && hasGameYaw) {
+            // Complementary filter: gyro for the short term, magnetometer for drift-free north
+            float target = HeadingFilter.wrap(magneticHeading - gameYaw);
+            if (!hasNorthOffset) {
+                northOffset = target;
+                hasNorthOffset = true;
+            } else {
+                float dt = Math.min(1f, (timestampNanos - lastOffsetNanos) * 1e-9f);
+                float k = 1f - (float) Math.exp(-dt / NORTH_CORRECTION_TIME_CONSTANT);
+                northOffset += k * HeadingFilter.wrap(target - northOffset);
+            }
+            lastOffsetNanos = timestampNanos;
+        }
+    }
+
+    private float yawFromVector(float[] vector) {
+        SensorManager.getRotationMatrixFromVector(rotation, vector);
+        SensorManager.getOrientation(rotation, orientation);
+        return (float) Math.toDegrees(orientation[0]);
+    }
+
+    // Every path that produces a heading ends here, so only headings are counted, not the
+    // accelerometer and magnetometer samples that feed them
+    private void onHeading(float degrees, long timestampNanos) {
+        rateMeter.onEvent(timestampNanos);
+        azimuth = filter.update(degrees, timestampNanos);
+        if (!framePaced) {
+            deliver();
+        } else if (!framePosted) {
+            framePosted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    // One listener call per frame no matter how many sensor events arrived
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        framePosted = false;
+        deliver();
+    }
+
+    private void deliver() {
+        listener.onAzimuthChanged(azimuth);
+        if (ratePolicy.onHeadingRate(SystemClock.uptimeMillis(), filter.getRate())) register();
+    }
+
+    private static void lowPass(float[] in, float[] out, boolean primed) {
+        if (!primed) {
+            out[0] = in[0];
+            out[1] = in[1];
+            out[2] = in[2];
+            return;
+        }
+        out[0] = GRAVITY_ALPHA * out[0] + (1 - GRAVITY_ALPHA) * in[0];
+        out[1] = GRAVITY_ALPHA * out[1] + (1 - GRAVITY_ALPHA) * in[1];
+        out[2] = GRAVITY_ALPHA * out[2] + (1 - GRAVITY_ALPHA) * in[2];
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+}
@@ -0,0 +1,117 @@
+package com.howling.radar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Binary search straight over the oui.idx buffer, nothing is parsed up front
+// (layout is documented next to the compileOuiIndex task in app/build.gradle)
+public class OuiIndex {
+    public static final int MAGIC = 0x4F554931; // "OUI1"
+    public static final int VERSION = 2;
+    private static final int HEADER_SIZE = 28;
+
+    // IEEE registries, longest first: MA-S (36 bit), MA-M (28 bit), MA-L (24 bit)
+    private static final int[] PREFIX_BITS = {36, 28, 24};
+    private static final int MA_L = 2;
+
+    private final ByteBuffer data;
+    private final int vendorCount;
+    private final int[] counts = new int[3];
+    private final int[] keyBase = new int[3];
+    private final int[] vendorIdBase = new int[3];
+    private final int offsetBase;
+    private final int stringBase;
+
+    // Vendor names are decoded on first hit only, later hits reuse the same String
+    private final String[] names;
+
+    private OuiIndex(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not an oui.idx file");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported oui.idx version " + data.getInt(4));
+        }
+        vendorCount = data.getInt(8);
+        int stringBytes = data.getInt(12);
+
+        int pos = HEADER_SIZE;
+        for (int t = 0; t < 3; t++) {
+            counts[t] = data.getInt(16 + t * 4);
+            if (counts[t] < 0) throw new IOException("Corrupt oui.idx");
+            keyBase[t] = pos;
+            pos += counts[t] * keyWidth(t);
+            vendorIdBase[t] = pos;
+            pos += (counts[t] * 2 + 3) & ~3;
+        }
+        offsetBase = pos;
+        stringBase = offsetBase + (vendorCount + 1) * 4;
+        if (vendorCount < 0 || stringBase + stringBytes > data.capacity()) {
+            throw new IOException("Truncated oui.idx");
+        }
+        names = new String[vendorCount];
+    }
+
+    public static OuiIndex wrap(ByteBuffer data) throws IOException {
+        return new OuiIndex(data);
+    }
+
+    public int size() {
+        return counts[0] + counts[1] + counts[2];
+    }
+
+    public int vendorCount() {
+        return vendorCount;
+    }
+
+    // 48-bit MAC -> vendor id of the longest registered prefix, -1 if none matches
+    public int find(long mac) {
+        for (int t = 0; t < 3; t++) {
+            int id = search(t, mac >>> (48 - PREFIX_BITS[t]));
+            if (id >= 0) return id;
+        }
+        return -1;
+    }
+
+    // 24-bit OUI -> vendor id of the MA-L block only
+    public int findOui(int oui) {
+        return search(MA_L, oui);
+    }
+
+    private int search(int table, long key) {
+        int lo = 0;
+        int hi = counts[table] - 1;
+        int width = keyWidth(table);
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at = keyBase[table] + mid * width;
+            long value = width == 8 ? data.getLong(at) : data.getInt(at);
+            if (value < key) lo = mid + 1;
+            else if (value > key) hi = mid - 1;
+            else return data.getChar(vendorIdBase[table] + mid * 2);
+        }
+        return -1;
+    }
+
+    // 36-bit MA-S keys don't fit an int
+    private static int keyWidth(int table) {
+        return PREFIX_BITS[table] > 32 ? 8 : 4;
+    }
+
+    public String vendorName(int id) {
+        String name = names[id];
+        if (name == null) {
+            int start = data.getInt(offsetBase + id * 4);
+            int end = data.getInt(offsetBase + id * 4 + 4);
+            byte[] utf8 = new byte[end - start];
+            for (int i = 0; i < utf8.length; i++) {
+                utf8[i] = data.get(stringBase + start + i);
+            }
+            name = new String(utf8, StandardCharsets.UTF_8);
+            names[id] = name;
+        }
+        return name;
+    }
+}
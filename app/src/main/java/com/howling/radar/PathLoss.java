@@ -0,0 +1,25 @@
+package com.howling.radar;
+
+// Log-distance path-loss model: RSSI = txPower - (FSPL at 1 m for this frequency) - 10 n log10(d).
+// The 1 m reference comes from the free-space loss at the AP's own frequency, so 5 and 6 GHz
+// APs aren't measured with the 2.4 GHz constant.
+public class PathLoss {
+    // Typical AP EIRP
+    public static final float TX_POWER_DBM = 20f;
+    // Indoor exponent; 2.0 would be free space
+    public static final float EXPONENT = 3.0f;
+
+    private static final float MAX_DISTANCE = 500f;
+
+    // Free-space path loss at 1 m in dB (27.55 folds in c and the MHz / m units)
+    public static float referenceLoss(int frequencyMhz) {
+        if (frequencyMhz <= 0) frequencyMhz = 2437;
+        return (float) (20 * Math.log10(frequencyMhz) - 27.55);
+    }
+
+    public static float distanceMeters(float rssi, int frequencyMhz) {
+        float loss = TX_POWER_DBM - rssi - referenceLoss(frequencyMhz);
+        float d = (float) Math.pow(10, loss / (10 * EXPONENT));
+        return Math.min(MAX_DISTANCE, Math.max(0.1f, d));
+    }
+}
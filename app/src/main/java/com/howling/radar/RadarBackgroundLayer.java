@@ -0,0 +1,98 @@
+package com.howling.radar;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+// Rings, tick marks, crosshair and N/S/E/W only change with the view size.
+// They are recorded once per size and each frame just replays them under the azimuth rotation.
+public class RadarBackgroundLayer extends CachedLayer {
+    // Room outside the outer ring for the compass letters
+    private static final int MARGIN = 90;
+
+    private final Paint paint = new Paint();
+    private final Paint textPaint = new Paint();
+
+    private int radius = -1;
+    private int half;
+
+    public RadarBackgroundLayer() {
+        super("RadarBackground");
+        paint.setAntiAlias(true);
+        textPaint.setAntiAlias(true);
+        textPaint.setTypeface(Typeface.DEFAULT_BOLD);
+    }
+
+    public void setRadius(int radius) {
+        if (radius == this.radius) return;
+        this.radius = radius;
+        this.half = radius + MARGIN;
+        setSize(half * 2, half * 2);
+    }
+
+    public void draw(Canvas canvas, float centerX, float centerY, float azimuth) {
+        if (radius <= 0) return;
+        canvas.save();
+        canvas.rotate(-azimuth, centerX, centerY);
+        canvas.translate(centerX - half, centerY - half);
+        replay(canvas);
+        canvas.restore();
+    }
+
+    @Override
+    protected void record(Canvas canvas) {
+        drawDial(canvas);
+    }
+
+    // Dial centred at (half, half) in layer coordinates
+    private void drawDial(Canvas canvas) {
+        float c = half;
+
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setColor(Color.GREEN);
+
+        paint.setAlpha(120);
+        paint.setStrokeWidth(4);
+        canvas.drawCircle(c, c, radius + 15, paint);
+        paint.setStrokeWidth(1);
+        canvas.drawCircle(c, c, radius + 25, paint);
+
+        paint.setAlpha(60);
+        canvas.drawCircle(c, c, radius * 0.66f, paint);
+        canvas.drawCircle(c, c, radius * 0.33f, paint);
+
+        for (int i = 0; i < 360; i += 5) {
+            float startR = radius + 15;
+            float endR = (i % 90 == 0) ? radius - 20 : (i % 10 == 0 ? radius - 10 : radius + 5);
+
+            float angleRad = (float) Math.toRadians(i);
+            float cos = (float) Math.cos(angleRad);
+            float sin = (float) Math.sin(angleRad);
+
+            paint.setAlpha(i % 90 == 0 ? 200 : 80);
+            paint.setStrokeWidth(i % 90 == 0 ? 3 : 1);
+            canvas.drawLine(c + cos * startR, c + sin * startR, c + cos * endR, c + sin * endR, paint);
+        }
+
+        paint.setAlpha(50);
+        paint.setStrokeWidth(2);
+        canvas.drawLine(c, c - radius, c, c + radius, paint);
+        canvas.drawLine(c - radius, c, c + radius, c, paint);
+
+        textPaint.setColor(Color.GREEN);
+        textPaint.setStyle(Paint.Style.FILL);
+        textPaint.setTextSize(40);
+        textPaint.setAlpha(255);
+
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        canvas.drawText("N", c, c - radius - 45, textPaint);
+        canvas.drawText("S", c, c + radius + 75, textPaint);
+
+        textPaint.setTextAlign(Paint.Align.LEFT);
+        canvas.drawText("E", c + radius + 45, c + 15, textPaint);
+
+        textPaint.setTextAlign(Paint.Align.RIGHT);
+        canvas.drawText("W", c - radius - 45, c + 15, textPaint);
+    }
+}
@@ -0,0 +1,138 @@
+package com.howling.radar;
+
+import android.util.Log;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Hot-path instrumentation for the radar and the scan pipeline:
+//   frameTime     onDraw duration                          (UI thread)
+//   scanToRender  SCAN_RESULTS_AVAILABLE_ACTION -> end of the first frame showing that scan (UI)
+//   ingestTime    getScanResults + merge + snapshot        (ingest thread)
+// plus per-frame draw counts and the sensor rates. Recording is allocation-free; the debug HUD
+// text is rebuilt at most every HUD_REFRESH and the report is only built on dump.
+public class RadarStats {
+    private static final String TAG = "RadarStats";
+    private static final long HUD_REFRESH_NANOS = 500_000_000L;
+
+    private static final Executor WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "RadarStats-dump");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public final LatencyHistogram frameTime = new LatencyHistogram();
+    public final LatencyHistogram scanToRender = new LatencyHistogram();
+    public final LatencyHistogram ingestTime = new LatencyHistogram();
+
+    // UI thread
+    private long frames;
+    private int lastTargets;
+    private int lastBlips;
+    private int lastLabels;
+    private long totalBlips;
+    private long totalLabels;
+    private long lastScanToRender;
+
+    // Written by whoever owns the sensors
+    private volatile float headingRate;
+    private volatile int headingRateMode = -1;
+    private volatile float accelRate;
+
+    private final StringBuilder sb = new StringBuilder(128);
+    private final String[] hudLines = new String[5];
+    private long hudBuiltAt = Long.MIN_VALUE;
+
+    // One per drawn frame: targets in the snapshot, blips and labels actually drawn
+    public void onFrame(long drawNanos, int targets, int blips, int labels) {
+        frameTime.record(drawNanos);
+        frames++;
+        lastTargets = targets;
+        lastBlips = blips;
+        lastLabels = labels;
+        totalBlips += blips;
+        totalLabels += labels;
+    }
+
+    public void onScanRendered(long latencyNanos) {
+        scanToRender.record(latencyNanos);
+        lastScanToRender = latencyNanos;
+    }
+
+    public void onIngest(long nanos) {
+        ingestTime.record(nanos);
+    }
+
+    public void setHeadingRate(float eventsPerSecond, int rateMode) {
+        headingRate = eventsPerSecond;
+        headingRateMode = rateMode;
+    }
+
+    public void setAccelRate(float eventsPerSecond) {
+        accelRate = eventsPerSecond;
+    }
+
+    // Debug HUD text; the same array is returned and only refreshed every HUD_REFRESH
+    public String[] getHudLines(long nowNanos) {
+        if (nowNanos - hudBuiltAt < HUD_REFRESH_NANOS) return hudLines;
+        hudBuiltAt = nowNanos;
+
+        sb.setLength(0);
+        hudLines[0] = frameTime.appendSummary(sb.append("FRAME ")).toString();
+        sb.setLength(0);
+        sb.append("DRAWN ").append(lastBlips).append('/').append(lastTargets).append(" blips, ")
+                .append(lastLabels).append(" labels");
+        hudLines[1] = sb.toString();
+        sb.setLength(0);
+        hudLines[2] = scanToRender.appendSummary(sb.append("SCAN>RENDER ")).toString();
+        sb.setLength(0);
+        hudLines[3] = ingestTime.appendSummary(sb.append("INGEST ")).toString();
+        sb.setLength(0);
+        sb.append("SENSOR heading ").append(Math.round(headingRate)).append("/s");
+        if (headingRateMode >= 0) sb.append(" (").append(SensorRatePolicy.modeName(headingRateMode)).append(')');
+        sb.append(", accel ").append(Math.round(accelRate)).append("/s");
+        hudLines[4] = sb.toString();
+        return hudLines;
+    }
+
+    // Call on the UI thread: the report is built here, only the file write is off-thread
+    public void dumpAsync(File file) {
+        final String report = buildReport();
+        WRITER.execute(() -> {
+            try (Writer w = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                w.write(report);
+            } catch (IOException e) {
+                Log.e(TAG, "Stats dump failed", e);
+            }
+        });
+    }
+
+    public String buildReport() {
+        StringBuilder r = new StringBuilder(4096);
+        r.append("frames ").append(frames);
+        if (frames > 0) {
+            r.append(", avg blips ").append(totalBlips / frames).append(", avg labels ").append(totalLabels / frames);
+        }
+        r.append('\n');
+        r.append("last scan->render ");
+        LatencyHistogram.appendMillis(r, lastScanToRender).append(" ms\n");
+        r.append("heading ").append(headingRate).append("/s");
+        if (headingRateMode >= 0) r.append(" (").append(SensorRatePolicy.modeName(headingRateMode)).append(')');
+        r.append(", accel ").append(accelRate).append("/s\n");
+        appendHistogram(r, "frame", frameTime);
+        appendHistogram(r, "scan_to_render", scanToRender);
+        appendHistogram(r, "ingest", ingestTime);
+        return r.toString();
+    }
+
+    private static void appendHistogram(StringBuilder r, String name, LatencyHistogram h) {
+        r.append('\n').append(name).append(": ");
+        h.appendSummary(r).append('\n');
+        h.appendBuckets(r);
+    }
+}
@@ -9,18 +9,37 @@ import android.graphics.SweepGradient;
 import android.graphics.Typeface;
 import android.media.AudioAttributes;
 import android.media.SoundPool;
-import android.net.wifi.ScanResult;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class RadarView extends View {
+    public interface PopupListener {
+        void onPopupChanged(boolean open);
+    }
+
+    public interface ModeListener {
+        void onModeChanged(int mode);
+    }
+
+    public interface SurveyListener {
+        void onSurveyToggled();
+    }
+
+    public static final int MODE_RADAR = 0;
+    public static final int MODE_CHANNELS = 1;
+    private static final String[] MODE_LABELS = {"[ VIEW: RADAR ]", "[ VIEW: CHANNELS ]"};
+    // Tap target around the mode label in the HUD
+    private static final float MODE_TOUCH_RIGHT = 360;
+    private static final float MODE_TOUCH_BOTTOM = 130;
+    // The SYSTEM line above it toggles the background survey, when a listener is set
+    private static final float SURVEY_TOUCH_BOTTOM = 75;
+    // Tap target for the debug HUD, top right over AZIMUTH/TARGETS
+    private static final float DEBUG_TOUCH_WIDTH = 360;
+
     private Paint paint = new Paint();
     private Paint sweepPaint = new Paint();
     private Paint textPaint = new Paint();
@@ -29,23 +48,78 @@ public class RadarView extends View {
     private Paint popupTextPaint = new Paint(); 
     
     private float sweepAngle = 0;
+    // 1°/frame at 60 fps used to be the sweep speed; now it's tied to time, not refresh rate
+    private static final long SWEEP_PERIOD_NANOS = 6_000_000_000L;
+    private final FrameScheduler frameScheduler = new FrameScheduler(this::onFrame);
+    private int windowVisibility = VISIBLE;
     private float azimuth = 0;
-    private List<ScanResult> wifiResults = new ArrayList<>();
+
+    // Latest snapshot from ScanIngestor (any thread) and the one being drawn (UI thread)
+    private final AtomicReference<ScanSnapshot> pendingSnapshot = new AtomicReference<>(ScanSnapshot.EMPTY);
+    private ScanSnapshot snapshot = ScanSnapshot.EMPTY;
     
     private SweepGradient sweepGradient;
+    private final RadarBackgroundLayer backgroundLayer = new RadarBackgroundLayer();
+    // Both views keep their cached layers, so switching only flips mode
+    private final ChannelChart channelChart = new ChannelChart();
+    private int mode = MODE_RADAR;
+    private ModeListener modeListener;
+    private SurveyListener surveyListener;
+    private boolean surveying;
+
+    private RadarStats stats;
+    private boolean debugHud;
+    // Snapshot whose scan-to-render latency is still to be recorded
+    private boolean snapshotUnrendered;
+    // This frame's draw counts
+    private int drawnBlips;
+    private int drawnLabels;
     
     private SoundPool soundPool;
     private int pingSoundId;
     private boolean soundLoaded = false;
-    private Set<String> pingedDevices = new HashSet<>();
 
-    // Touch Detection
-    private Map<String, float[]> targetPositions = new HashMap<>();
-    private ScanResult selectedWifi = null;
+    // Per-target draw data, rebuilt per scan instead of per frame
+    private final RenderModel renderModel = new RenderModel();
+    private static final float TOUCH_RADIUS = 60;
+    // Filled by onDraw with where each blip was drawn; indices are renderModel slots
+    private final HitGrid hitGrid = new HitGrid(TOUCH_RADIUS);
+    // Clusters overlapping blips and caps/declutters labels for dense scans
+    private final LabelPlanner labelPlanner = new LabelPlanner();
+    private long selectedMac = MacAddress.INVALID;
+    private int selectedIndex = -1;
+    private PopupListener popupListener;
+    private boolean popupShown;
     
     // Popup ပေါ်မည့်နေရာ (Touch လုပ်လိုက်သည့်နေရာ)
     private float popupX = 0;
     private float popupY = 0;
+    private final RectF popupRect = new RectF();
+
+    // Popup text is built when the selection or its scan data changes, not per frame
+    private String popupTitle;
+    private String popupSignal;
+    private String popupFreq;
+    private String popupChan;
+    private String popupSec;
+    private String popupWidth;
+    private String popupDist;
+    private String popupWps;
+    private String popupVendor;
+    private long popupVendorMac = MacAddress.INVALID;
+    private boolean popupVendorFinal;
+
+    private static final String[] DIRECTIONS = {"N", "NNE", "NE", "ENE", "E", "ESE", "SE", "SSE", "S", "SSW", "SW", "WSW", "W", "WNW", "NW", "NNW"};
+    // "AZIMUTH: 123° ESE" per whole degree, so turning the phone doesn't build strings per frame
+    private static final String[] AZIMUTH_TEXT = new String[360];
+    static {
+        for (int d = 0; d < 360; d++) {
+            // 16-Point Compass
+            AZIMUTH_TEXT[d] = "AZIMUTH: " + d + "° " + DIRECTIONS[Math.round(d / 22.5f) % 16];
+        }
+    }
+    private int hudTargetCount = -1;
+    private String hudTargetsText;
 
     public RadarView(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -77,35 +151,167 @@ public class RadarView extends View {
         } catch (Exception e) {}
     }
 
-    public void updateBlips(List<ScanResult> results) {
-        this.wifiResults = results;
-        if (selectedWifi != null) {
-            boolean found = false;
-            for (ScanResult res : results) {
-                if (res.BSSID.equals(selectedWifi.BSSID)) {
-                    selectedWifi = res;
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) selectedWifi = null; 
+    // Safe from any thread; the snapshot is swapped in at the start of the next frame
+    public void updateBlips(ScanSnapshot next) {
+        pendingSnapshot.set(next);
+        postInvalidate();
+    }
+
+    private void applyPendingSnapshot() {
+        ScanSnapshot next = pendingSnapshot.get();
+        if (next == snapshot) return;
+        snapshot = next;
+        snapshotUnrendered = next.requestedNanos != 0;
+        Trace.beginSection("RadarView.rebuild");
+        renderModel.rebuild(next);
+        Trace.endSection();
+        hitGrid.clear(); // slots changed; repopulated by this frame
+
+        // O(1) refresh; popup closes once the target has aged out
+        selectedIndex = next.indexOf(selectedMac);
+        if (selectedIndex >= 0) {
+            buildPopupText();
+        } else {
+            selectedMac = MacAddress.INVALID;
         }
-        invalidate();
+        notifyPopup();
+    }
+
+    public void setPopupListener(PopupListener listener) {
+        popupListener = listener;
+    }
+
+    private void notifyPopup() {
+        boolean open = selectedIndex >= 0;
+        if (open == popupShown) return;
+        popupShown = open;
+        if (popupListener != null) popupListener.onPopupChanged(open);
     }
 
     public void setAzimuth(float azimuth) {
+        int shown = (int) this.azimuth;
         this.azimuth = azimuth;
+        // While the frame loop runs it picks this up on the next frame;
+        // the channel chart only shows heading in the HUD, so it redraws per whole degree
+        if (frameScheduler.isRunning()) return;
+        if (mode == MODE_RADAR || (int) azimuth != shown) invalidate();
+    }
+
+    // Frame, latency and draw-count instrumentation; null disables it
+    public void setStats(RadarStats stats) {
+        this.stats = stats;
+    }
+
+    public void setDebugHud(boolean shown) {
+        debugHud = shown;
+        invalidate();
+    }
+
+    public boolean isDebugHudShown() {
+        return debugHud;
+    }
+
+    public void setModeListener(ModeListener listener) {
+        modeListener = listener;
+    }
+
+    public void setSurveyListener(SurveyListener listener) {
+        surveyListener = listener;
+    }
+
+    public void setSurveying(boolean surveying) {
+        this.surveying = surveying;
         invalidate();
     }
 
+    public int getMode() {
+        return mode;
+    }
+
+    public void setMode(int mode) {
+        if (mode == this.mode) return;
+        this.mode = mode;
+        // Popups belong to radar blips
+        selectedMac = MacAddress.INVALID;
+        selectedIndex = -1;
+        notifyPopup();
+        updateAnimationState();
+        invalidate();
+        if (modeListener != null) modeListener.onModeChanged(mode);
+    }
+
+    // Most labels drawn per frame; 0 hides all but the selected target's
+    public void setMaxLabels(int maxLabels) {
+        labelPlanner.setMaxLabels(maxLabels);
+        invalidate();
+    }
+
+    // 0 = display refresh rate, e.g. 30 for battery saving
+    public void setTargetFps(int fps) {
+        frameScheduler.setTargetFps(fps);
+    }
+
+    // FrameScheduler callback; package-private so the frame budget test can drive it
+    void onFrame(long frameTimeNanos) {
+        sweepAngle = (frameTimeNanos % SWEEP_PERIOD_NANOS) * 360f / SWEEP_PERIOD_NANOS;
+        invalidate();
+    }
+
+    // Frame loop only runs while the radar can actually be seen; the channel chart only
+    // changes per scan and redraws from updateBlips()
+    private void updateAnimationState() {
+        if (mode == MODE_RADAR && isAttachedToWindow() && isShown() && windowVisibility == VISIBLE) {
+            frameScheduler.start();
+        } else {
+            frameScheduler.stop();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateAnimationState();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateAnimationState();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        windowVisibility = visibility;
+        updateAnimationState();
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (event.getAction() == MotionEvent.ACTION_DOWN) {
             float x = event.getX();
             float y = event.getY();
 
+            if (x < MODE_TOUCH_RIGHT && y < SURVEY_TOUCH_BOTTOM && surveyListener != null) {
+                surveyListener.onSurveyToggled();
+                return true;
+            }
+            if (x < MODE_TOUCH_RIGHT && y < MODE_TOUCH_BOTTOM) {
+                setMode(mode == MODE_RADAR ? MODE_CHANNELS : MODE_RADAR);
+                return true;
+            }
+            if (x > getWidth() - DEBUG_TOUCH_WIDTH && y < MODE_TOUCH_BOTTOM && stats != null) {
+                setDebugHud(!debugHud);
+                return true;
+            }
+            if (mode == MODE_CHANNELS) {
+                // Nothing to pick on the chart; still allow the long-press export
+                super.onTouchEvent(event);
+                return true;
+            }
+
             // 1. Check Exit Button (Popup ပွင့်နေမှ စစ်မယ်)
-            if (selectedWifi != null) {
+            if (selectedIndex >= 0) {
                 float boxW = 550;
                 float boxH = 750;
                 
@@ -121,160 +327,161 @@ public class RadarView extends View {
                 
                 // Exit Button Area (ညာဘက်အပေါ်ထောင့်)
                 if (x > drawX + boxW - 80 && x < drawX + boxW && y > drawY && y < drawY + 80) {
-                    selectedWifi = null; // ပိတ်မယ်
+                    selectedMac = MacAddress.INVALID; // ပိတ်မယ်
+                    selectedIndex = -1;
+                    notifyPopup();
                     invalidate();
                     return true;
                 }
             }
 
             // 2. Check Radar Blip Click
-            String clickedBSSID = null;
-            for (Map.Entry<String, float[]> entry : targetPositions.entrySet()) {
-                float tx = entry.getValue()[0];
-                float ty = entry.getValue()[1];
-                if (Math.hypot(x - tx, y - ty) < 60) { // Touch Radius
-                    clickedBSSID = entry.getKey();
-                    
-                    // နှိပ်လိုက်တဲ့နေရာကို မှတ်ထားမယ် (Popup ပြဖို့)
-                    popupX = x;
-                    popupY = y;
-                    break;
-                }
+            int hit = hitGrid.query(x, y, TOUCH_RADIUS);
+            if (hit >= 0) {
+                // နှိပ်လိုက်တဲ့နေရာကို မှတ်ထားမယ် (Popup ပြဖို့)
+                popupX = x;
+                popupY = y;
+
+                selectedIndex = hit;
+                selectedMac = snapshot.mac[hit];
+                buildPopupText();
+                notifyPopup();
+                invalidate();
+            } else {
+                // Empty space: let View run its long-press detection
+                super.onTouchEvent(event);
             }
-
-            if (clickedBSSID != null) {
-                for (ScanResult res : wifiResults) {
-                    if (res.BSSID.equals(clickedBSSID)) {
-                        selectedWifi = res;
-                        invalidate();
-                        break;
-                    }
-                }
-            } 
             
             return true;
         }
         return super.onTouchEvent(event);
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        frameScheduler.stop();
+        backgroundLayer.release();
+        channelChart.release();
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        int centerX = getWidth() / 2;
-        int centerY = getHeight() / 2;
-        int radius = Math.min(getWidth(), getHeight()) / 2 - 140;
-
-        targetPositions.clear(); 
+        long start = System.nanoTime();
+        Trace.beginSection("RadarView.onDraw");
+        drawnBlips = 0;
+        drawnLabels = 0;
+        applyPendingSnapshot();
 
         // --- Static Background ---
         drawDigitalHUD(canvas);
-        
-        paint.setStyle(Paint.Style.STROKE);
-        paint.setColor(Color.GREEN);
-        
-        paint.setAlpha(120);
-        paint.setStrokeWidth(4);
-        canvas.drawCircle(centerX, centerY, radius + 15, paint);
-        paint.setStrokeWidth(1);
-        canvas.drawCircle(centerX, centerY, radius + 25, paint);
 
-        paint.setAlpha(60);
-        canvas.drawCircle(centerX, centerY, radius * 0.66f, paint);
-        canvas.drawCircle(centerX, centerY, radius * 0.33f, paint);
+        if (mode == MODE_CHANNELS) {
+            Trace.beginSection("RadarView.channelChart");
+            channelChart.draw(canvas, snapshot, getWidth(), getHeight());
+            Trace.endSection();
+        } else {
+            drawRadar(canvas);
+        }
+        Trace.endSection();
+        recordFrame(start);
+    }
 
-        // --- Rotating Elements ---
-        canvas.save();
-        canvas.rotate(-azimuth, centerX, centerY);
-        
-        for (int i = 0; i < 360; i += 5) {
-            float startR = radius + 15;
-            float endR = (i % 90 == 0) ? radius - 20 : (i % 10 == 0 ? radius - 10 : radius + 5);
-            
-            float angleRad = (float) Math.toRadians(i);
-            float cos = (float) Math.cos(angleRad);
-            float sin = (float) Math.sin(angleRad);
-
-            float x1 = centerX + cos * startR;
-            float y1 = centerY + sin * startR;
-            float x2 = centerX + cos * endR;
-            float y2 = centerY + sin * endR;
-            
-            paint.setAlpha(i % 90 == 0 ? 200 : 80);
-            paint.setStrokeWidth(i % 90 == 0 ? 3 : 1);
-            canvas.drawLine(x1, y1, x2, y2, paint);
+    private void recordFrame(long startNanos) {
+        RadarStats s = stats;
+        if (s == null) return;
+        s.onFrame(System.nanoTime() - startNanos, snapshot.count, drawnBlips, drawnLabels);
+        if (snapshotUnrendered) {
+            snapshotUnrendered = false;
+            s.onScanRendered(SystemClock.elapsedRealtimeNanos() - snapshot.requestedNanos);
         }
+    }
 
-        paint.setAlpha(50);
-        paint.setStrokeWidth(2);
-        canvas.drawLine(centerX, centerY - radius, centerX, centerY + radius, paint);
-        canvas.drawLine(centerX - radius, centerY, centerX + radius, centerY, paint);
+    private void drawRadar(Canvas canvas) {
+        int centerX = getWidth() / 2;
+        int centerY = getHeight() / 2;
+        int radius = getRadarRadius();
 
-        textPaint.setColor(Color.GREEN);
-        textPaint.setStyle(Paint.Style.FILL);
-        textPaint.setTextSize(40);
-        textPaint.setAlpha(255);
-        
-        textPaint.setTextAlign(Paint.Align.CENTER);
-        canvas.drawText("N", centerX, centerY - radius - 45, textPaint);
-        canvas.drawText("S", centerX, centerY + radius + 75, textPaint);
-        
-        textPaint.setTextAlign(Paint.Align.LEFT);
-        canvas.drawText("E", centerX + radius + 45, centerY + 15, textPaint);
-        
-        textPaint.setTextAlign(Paint.Align.RIGHT);
-        canvas.drawText("W", centerX - radius - 45, centerY + 15, textPaint);
+        // Rings, ticks, crosshair, N/S/E/W: recorded once per size, replayed rotated
+        backgroundLayer.setRadius(radius);
+        backgroundLayer.draw(canvas, centerX, centerY, azimuth);
+
+        // --- Rotating Elements ---
+        canvas.save();
+        canvas.rotate(-azimuth, centerX, centerY);
 
         // --- WiFi Targets ---
-        for (ScanResult result : wifiResults) {
-            int macHash = result.BSSID.hashCode();
-            float targetAngle = Math.abs(macHash % 360);
-            float visualAngle = (targetAngle - azimuth + 360) % 360; 
-            float angleDiff = (sweepAngle - visualAngle + 360) % 360;
-            
+        // Angles, colours and labels come from renderModel, clusters from labelPlanner;
+        // per frame only the sweep fade and which labels fit are worked out
+        float azRad = (float) Math.toRadians(azimuth);
+        float azCos = (float) Math.cos(azRad);
+        float azSin = (float) Math.sin(azRad);
+        RenderModel model = renderModel;
+        LabelPlanner lod = labelPlanner;
+        if (lod.needsLayout(model, radius)) {
+            Trace.beginSection("RadarView.labelLayout");
+            lod.layout(model, radius);
+            measureLabels(model, lod);
+            Trace.endSection();
+        }
+        Trace.beginSection("RadarView.blips");
+        model.updateSweep(azimuth, sweepAngle, lod.alpha);
+        for (int i = 0; i < model.count; i++) {
+            float angleDiff = model.sweepLag[i];
             if (soundLoaded && angleDiff >= 0 && angleDiff < 4) {
-                if (!pingedDevices.contains(result.BSSID)) {
+                if (!model.pinged[i]) {
                     soundPool.play(pingSoundId, 0.5f, 0.5f, 1, 0, 1.0f);
-                    pingedDevices.add(result.BSSID);
+                    model.pinged[i] = true;
                 }
             } else if (angleDiff > 10) {
-                pingedDevices.remove(result.BSSID);
+                model.pinged[i] = false;
             }
-            
-            int alpha = (angleDiff < 310) ? (int) (255 * (1.0f - (angleDiff / 310f))) : 0;
+        }
+        lod.plan(selectedIndex);
+
+        hitGrid.reset(getWidth(), getHeight());
+        for (int i = 0; i < model.count; i++) {
+            // Cluster members are drawn (and picked) through their strongest blip
+            if (lod.leader[i] != i) continue;
+            int alpha = lod.alpha[i];
 
             if (alpha > 15) {
-                float strength = Math.min(1.0f, Math.max(0.1f, (100f + result.level) / 70f));
-                float dist = (1.0f - strength) * radius; 
-                
-                float rad = (float) Math.toRadians(targetAngle);
-                float x = (float) (centerX + Math.cos(rad) * dist);
-                float y = (float) (centerY + Math.sin(rad) * dist);
+                float x = centerX + lod.x[i];
+                float y = centerY + lod.y[i];
 
                 paint.setStyle(Paint.Style.FILL);
-                paint.setColor(result.level > -65 ? Color.GREEN : Color.RED);
+                paint.setColor(model.color[i]);
                 paint.setAlpha(alpha);
                 
-                float size = (angleDiff < 20) ? 14 : 10; 
+                float size = (model.sweepLag[i] < 20) ? 14 : 10; 
+                if (lod.clusterSize[i] > 1) size += 4;
                 canvas.drawRect(x - size, y - size, x + size, y + size, paint);
+                drawnBlips++;
                 
-                double screenRad = Math.toRadians(targetAngle - azimuth);
-                float screenX = (float) (centerX + Math.cos(screenRad) * dist);
-                float screenY = (float) (centerY + Math.sin(screenRad) * dist);
-                targetPositions.put(result.BSSID, new float[]{screenX, screenY});
+                // Screen position for touch: cos/sin(target - azimuth) without another trig call
+                float screenX = centerX + lod.x[i] * azCos + lod.y[i] * azSin;
+                float screenY = centerY + lod.y[i] * azCos - lod.x[i] * azSin;
+                hitGrid.add(i, screenX, screenY, Math.round(model.snapshot.smoothedLevel[i]));
 
+                if (!lod.showLabel[i]) continue;
+                drawnLabels++;
                 textPaint.setColor(Color.WHITE);
                 textPaint.setAlpha(alpha);
                 textPaint.setTextSize(24);
                 textPaint.setTextAlign(Paint.Align.LEFT);
-                String ssidName = result.SSID.isEmpty() ? "HIDDEN" : (result.SSID.length() > 12 ? result.SSID.substring(0, 12) + "..." : result.SSID);
-                String displayText = ssidName + " [" + (int)(dist/10) + "m]";
-                canvas.drawText(displayText, x + 25, y - 5, textPaint);
+                canvas.drawText(model.label[i], x + LabelPlanner.LABEL_OFFSET_X, y - 5, textPaint);
                 
                 textPaint.setColor(Color.CYAN);
                 textPaint.setTextSize(18);
-                canvas.drawText("SEC: " + getSecurityType(result.capabilities), x + 25, y + 20, textPaint);
+                canvas.drawText(model.secLabel[i], x + LabelPlanner.LABEL_OFFSET_X, y + 20, textPaint);
+                if (lod.clusterLabel[i] != null) {
+                    textPaint.setColor(Color.YELLOW);
+                    canvas.drawText(lod.clusterLabel[i], x + LabelPlanner.LABEL_OFFSET_X, y + 42, textPaint);
+                }
             }
         }
+        Trace.endSection();
         canvas.restore();
 
         // --- Sweep Line ---
@@ -291,14 +498,10 @@ public class RadarView extends View {
         canvas.restore();
         
         // --- ၅။ Popup Box (Smart Positioning) ---
-        if (selectedWifi != null) {
+        if (selectedIndex >= 0) {
             // Arguments ထည့်စရာမလိုတော့ဘူး၊ popupX/Y ကိုသုံးမယ်
             drawVerticalPopup(canvas);
         }
-
-        sweepAngle += 1.0f; 
-        if (sweepAngle >= 360) sweepAngle = 0;
-        invalidate();
     }
     
     // ဒီ Function မှာ Logic အသစ် ပြင်ထားပါတယ်
@@ -335,7 +538,8 @@ public class RadarView extends View {
         boxPaint.setStyle(Paint.Style.FILL);
         boxPaint.setColor(Color.BLACK);
         boxPaint.setAlpha(245); 
-        RectF rect = new RectF(left, top, right, bottom);
+        RectF rect = popupRect;
+        rect.set(left, top, right, bottom);
         canvas.drawRoundRect(rect, cornerRadius, cornerRadius, boxPaint);
 
         // 2. Red Border
@@ -371,9 +575,7 @@ public class RadarView extends View {
         popupTextPaint.setColor(Color.GREEN);
         
         // Header
-        String ssid = selectedWifi.SSID.isEmpty() ? "<HIDDEN>" : selectedWifi.SSID;
-        if(ssid.length() > 18) ssid = ssid.substring(0, 18) + "...";
-        canvas.drawText("TARGET: " + ssid, textX, currentY, popupTextPaint);
+        canvas.drawText(popupTitle, textX, currentY, popupTextPaint);
         
         // Line
         boxPaint.setColor(Color.DKGRAY);
@@ -385,36 +587,69 @@ public class RadarView extends View {
         popupTextPaint.setFakeBoldText(false);
 
         // --- DATA POINTS ---
-        drawRow(canvas, "BSSID", selectedWifi.BSSID, textX, currentY += gap, Color.WHITE);
+        int level = snapshot.level[selectedIndex];
+        drawRow(canvas, "BSSID: ", snapshot.bssid[selectedIndex], textX, currentY += gap, Color.WHITE);
         
-        int rssiColor = selectedWifi.level > -60 ? Color.GREEN : (selectedWifi.level > -80 ? Color.YELLOW : Color.RED);
-        drawRow(canvas, "SIGNAL", selectedWifi.level + " dBm", textX, currentY += gap, rssiColor);
+        int rssiColor = level > -60 ? Color.GREEN : (level > -80 ? Color.YELLOW : Color.RED);
+        drawRow(canvas, "SIGNAL: ", popupSignal, textX, currentY += gap, rssiColor);
         
-        drawRow(canvas, "FREQ", selectedWifi.frequency + " MHz", textX, currentY += gap, Color.CYAN);
-        drawRow(canvas, "CHAN", "CH " + getChannel(selectedWifi.frequency), textX, currentY += gap, Color.CYAN);
+        drawRow(canvas, "FREQ: ", popupFreq, textX, currentY += gap, Color.CYAN);
+        drawRow(canvas, "CHAN: ", popupChan, textX, currentY += gap, Color.CYAN);
         
-        String sec = getSecurityType(selectedWifi.capabilities);
-        drawRow(canvas, "SEC", sec, textX, currentY += gap, sec.contains("OPEN") ? Color.RED : Color.WHITE);
+        drawRow(canvas, "SEC: ", popupSec, textX, currentY += gap, snapshot.security[selectedIndex].isOpen() ? Color.RED : Color.WHITE);
         
-        String vendor = "Unknown";
-        try { vendor = MacVendorHelper.getVendor(selectedWifi.BSSID); } catch (Exception e) {}
-        drawRow(canvas, "VENDOR", vendor, textX, currentY += gap, Color.MAGENTA);
+        drawRow(canvas, "VENDOR: ", popupVendor, textX, currentY += gap, Color.MAGENTA);
         
-        String width = "20 MHz";
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
-            width = (selectedWifi.channelWidth == ScanResult.CHANNEL_WIDTH_20MHZ) ? "20 MHz" : "40+ MHz";
+        drawRow(canvas, "WIDTH: ", popupWidth, textX, currentY += gap, Color.LTGRAY);
+        drawRow(canvas, "DIST: ", popupDist, textX, currentY += gap, Color.YELLOW);
+        drawRow(canvas, "WPS: ", popupWps, textX, currentY += gap, Color.LTGRAY);
+        drawRow(canvas, "CLIENTS: ", "0 (Idle)", textX, currentY += gap, Color.DKGRAY);
+       // drawRow(canvas, "LAST_SEEN: ", "Now", textX, currentY += gap, Color.GREEN);
+    }
+
+    private void buildPopupText() {
+        ScanSnapshot s = snapshot;
+        int i = selectedIndex;
+        String ssid = s.ssid[i].isEmpty() ? "<HIDDEN>" : s.ssid[i];
+        if(ssid.length() > 18) ssid = ssid.substring(0, 18) + "...";
+        popupTitle = "TARGET: " + ssid;
+        popupSignal = s.level[i] + " dBm (~" + Math.round(s.smoothedLevel[i]) + ")";
+        popupFreq = s.frequency[i] + " MHz";
+        popupChan = "CH " + s.channel[i] + " (" + WifiChannel.bandName(s.band[i]) + ")";
+        popupSec = s.security[i].detail;
+        int center = WifiChannel.centerFreq(s.frequency[i], s.channelWidth[i], s.centerFreq0[i]);
+        popupWidth = WifiChannel.widthLabel(s.channelWidth[i])
+                + (center != s.frequency[i] ? " @" + center : "");
+        popupDist = WifiFormat.distance(s.distance[i]) + "m (" + Math.round(s.confidence[i] * 100) + "%)";
+        popupWps = s.security[i].has(Capabilities.WPS) ? "Yes" : "No";
+
+        // Once per selection; retried on later scans only while the OUI index is still loading
+        if (s.mac[i] != popupVendorMac || !popupVendorFinal) {
+            popupVendorMac = s.mac[i];
+            popupVendorFinal = VendorLookup.isLoaded();
+            popupVendor = MacVendorHelper.getVendor(popupVendorMac);
+        }
+    }
+
+    // Once per layout with the text sizes onDraw uses, so it's per scan rather than per frame
+    private void measureLabels(RenderModel model, LabelPlanner lod) {
+        textPaint.setTextSize(24);
+        for (int i = 0; i < model.count; i++) {
+            if (lod.leader[i] != i) continue;
+            lod.labelWidth[i] = textPaint.measureText(model.label[i]);
+        }
+        textPaint.setTextSize(18);
+        for (int i = 0; i < model.count; i++) {
+            if (lod.leader[i] != i) continue;
+            lod.labelWidth[i] = Math.max(lod.labelWidth[i], textPaint.measureText(model.secLabel[i]));
         }
-        drawRow(canvas, "WIDTH", width, textX, currentY += gap, Color.LTGRAY);
-        drawRow(canvas, "DIST", getDist(selectedWifi.level) + "m", textX, currentY += gap, Color.YELLOW);
-        drawRow(canvas, "WPS", selectedWifi.capabilities.contains("WPS") ? "Yes" : "No", textX, currentY += gap, Color.LTGRAY);
-        drawRow(canvas, "CLIENTS", "0 (Idle)", textX, currentY += gap, Color.DKGRAY);
-       // drawRow(canvas, "LAST_SEEN", "Now", textX, currentY += gap, Color.GREEN);
     }
 
+    // label already carries its ": " so nothing is concatenated per frame
     private void drawRow(Canvas canvas, String label, String value, float x, float y, int valColor) {
         popupTextPaint.setColor(Color.GRAY);
-        canvas.drawText(label + ": ", x, y, popupTextPaint);
-        float w = popupTextPaint.measureText(label + ": ");
+        canvas.drawText(label, x, y, popupTextPaint);
+        float w = popupTextPaint.measureText(label);
         popupTextPaint.setColor(valColor);
         canvas.drawText(value, x + w, y, popupTextPaint);
     }
@@ -425,18 +660,21 @@ public class RadarView extends View {
         textPaint.setTextSize(24);
         textPaint.setAlpha(180);
         textPaint.setTextAlign(Paint.Align.LEFT);
-        canvas.drawText("SYSTEM: ONLINE", 40, 60, textPaint);
+        canvas.drawText(surveying ? "SYSTEM: SURVEYING" : "SYSTEM: ONLINE", 40, 60, textPaint);
+        canvas.drawText(MODE_LABELS[mode], 40, 95, textPaint);
         
         textPaint.setTextAlign(Paint.Align.RIGHT);
         
-        // 16-Point Compass
-        String[] directions = {"N", "NNE", "NE", "ENE", "E", "ESE", "SE", "SSE", "S", "SSW", "SW", "WSW", "W", "WNW", "NW", "NNW"};
-        int index = Math.round(azimuth / 22.5f) % 16;
-        if (index < 0) index += 16;
-        String dirName = directions[index]; 
-        
-        canvas.drawText("AZIMUTH: " + (int)azimuth + "° " + dirName, getWidth() - 40, 60, textPaint);
-        canvas.drawText("TARGETS: " + wifiResults.size(), getWidth() - 40, 95, textPaint);
+        int degrees = (int) HeadingFilter.normalize(azimuth) % 360;
+        // Rebuilt only when the scan's target count changes
+        if (snapshot.count != hudTargetCount) {
+            hudTargetCount = snapshot.count;
+            hudTargetsText = "TARGETS: " + hudTargetCount;
+        }
+        canvas.drawText(AZIMUTH_TEXT[degrees], getWidth() - 40, 60, textPaint);
+        canvas.drawText(hudTargetsText, getWidth() - 40, 95, textPaint);
+
+        if (debugHud && stats != null) drawDebugHud(canvas);
         /*paint.setColor(Color.GREEN);
         paint.setAlpha(100);
         paint.setStrokeWidth(2);
@@ -444,22 +682,21 @@ public class RadarView extends View {
         canvas.drawLine(getWidth() - 150, getHeight() - 60, getWidth() - 40, getHeight() - 60, paint);*/
     }
 
-    private String getSecurityType(String caps) {
-        if (caps.contains("WPA3")) return "WPA3";
-        if (caps.contains("WPA2")) return "WPA2";
-        if (caps.contains("WPA")) return "WPA";
-        if (caps.contains("WEP")) return "WEP";
-        return "OPEN";
-    }
-    
-    private int getChannel(int freq) {
-        if (freq >= 2412 && freq <= 2484) return (freq - 2412) / 5 + 1;
-        if (freq >= 5170 && freq <= 5825) return (freq - 5170) / 5 + 34;
-        return 0;
+    // Instrumentation readout, bottom left; text refreshes twice a second
+    private void drawDebugHud(Canvas canvas) {
+        String[] lines = stats.getHudLines(System.nanoTime());
+        textPaint.setTextAlign(Paint.Align.LEFT);
+        textPaint.setColor(Color.YELLOW);
+        textPaint.setAlpha(220);
+        textPaint.setTextSize(20);
+        float y = getHeight() - 40 - (lines.length - 1) * 26;
+        for (String line : lines) {
+            canvas.drawText(line, 40, y, textPaint);
+            y += 26;
+        }
     }
-    
-    private String getDist(int level) {
-         double exp = (27.55 - (20 * Math.log10(2400)) + Math.abs(level)) / 20.0;
-         return String.format("%.1f", Math.pow(10.0, exp));
+
+    private int getRadarRadius() {
+        return Math.min(getWidth(), getHeight()) / 2 - 140;
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.howling.radar;
+
+import java.util.Arrays;
+
+// Everything RadarView.onDraw needs per target, computed once per snapshot
+// into parallel arrays so the draw loop does no trig, string building or allocation.
+// Slot i is snapshot index i. Owned by the UI thread.
+public class RenderModel {
+    // Same values as Color.GREEN / Color.RED, kept literal so this class stays Android-free
+    static final int COLOR_STRONG = 0xFF00FF00;
+    static final int COLOR_WEAK = 0xFFFF0000;
+
+    public ScanSnapshot snapshot = ScanSnapshot.EMPTY;
+    public int count;
+    public float[] angle = new float[0];     // degrees, fixed per BSSID
+    public float[] cos = new float[0];
+    public float[] sin = new float[0];
+    public float[] distance = new float[0];  // 0..1 of the radar radius
+    public int[] color = new int[0];
+    public float[] opacity = new float[0];   // blip alpha scale from the RSSI confidence
+    public String[] label = new String[0];     // "SSID [12m]"
+    public String[] secLabel = new String[0];  // "SEC: WPA2"
+    // Sweep ping already played on this pass; carried across snapshots by MAC
+    public boolean[] pinged = new boolean[0];
+    // Per frame, from updateSweep(): degrees each blip trails the sweep line, 0..360
+    public float[] sweepLag = new float[0];
+
+    private boolean[] previousPinged = new boolean[0];
+    private final LongIntMap slotByMac = new LongIntMap(256, -1);
+
+    public void rebuild(ScanSnapshot snapshot) {
+        ensureCapacity(snapshot.count);
+        boolean[] oldPinged = pinged;
+        pinged = previousPinged;
+        previousPinged = oldPinged;
+
+        this.snapshot = snapshot;
+        count = snapshot.count;
+        for (int i = 0; i < count; i++) {
+            float targetAngle = Math.abs(snapshot.bssid[i].hashCode() % 360);
+            double rad = Math.toRadians(targetAngle);
+            angle[i] = targetAngle;
+            cos[i] = (float) Math.cos(rad);
+            sin[i] = (float) Math.sin(rad);
+
+            // Smoothed level so blips don't jump with single-scan jitter
+            float level = snapshot.smoothedLevel[i];
+            float strength = Math.min(1.0f, Math.max(0.1f, (100f + level) / 70f));
+            distance[i] = 1.0f - strength;
+            color[i] = level > -65 ? COLOR_STRONG : COLOR_WEAK;
+            opacity[i] = 0.4f + 0.6f * snapshot.confidence[i];
+
+            label[i] = snapshot.shortName[i] + " [" + Math.round(snapshot.distance[i]) + "m]";
+            secLabel[i] = snapshot.security[i].label;
+
+            int previous = slotByMac.get(snapshot.mac[i]);
+            pinged[i] = previous >= 0 && oldPinged[previous];
+        }
+
+        slotByMac.clear();
+        for (int i = 0; i < count; i++) slotByMac.put(snapshot.mac[i], i);
+    }
+
+    // Per-frame sweep fade: a blip is brightest as the sweep passes it and fades out over 310°.
+    // Writes sweepLag and the 0..255 alpha (scaled by opacity) for every slot.
+    public void updateSweep(float azimuth, float sweepAngle, int[] alphaOut) {
+        for (int i = 0; i < count; i++) {
+            float visualAngle = (angle[i] - azimuth + 360) % 360;
+            float lag = (sweepAngle - visualAngle + 360) % 360;
+            sweepLag[i] = lag;
+            alphaOut[i] = (lag < 310) ? (int) (255 * (1.0f - (lag / 310f)) * opacity[i]) : 0;
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (angle.length >= n) return;
+        int cap = Math.max(n, angle.length * 2);
+        angle = Arrays.copyOf(angle, cap);
+        cos = Arrays.copyOf(cos, cap);
+        sin = Arrays.copyOf(sin, cap);
+        distance = Arrays.copyOf(distance, cap);
+        color = Arrays.copyOf(color, cap);
+        opacity = Arrays.copyOf(opacity, cap);
+        label = Arrays.copyOf(label, cap);
+        secLabel = Arrays.copyOf(secLabel, cap);
+        pinged = Arrays.copyOf(pinged, cap);
+        sweepLag = Arrays.copyOf(sweepLag, cap);
+        previousPinged = Arrays.copyOf(previousPinged, cap);
+    }
+}
@@ -0,0 +1,94 @@
+package com.howling.radar;
+
+// Per-target RSSI estimator. One sample per scan goes through either an EWMA or a 1-D Kalman
+// filter, and the last HISTORY raw samples sit in a ring buffer with running sums, so each
+// update is O(1) and allocation-free.
+public class RssiFilter {
+    public static final int MODE_EWMA = 0;
+    public static final int MODE_KALMAN = 1;
+
+    public static final int HISTORY = 8;
+
+    private static final float EWMA_ALPHA = 0.3f;
+    // Scan-to-scan RSSI jitter is around +-6 dB
+    private static final float MEASUREMENT_VARIANCE = 36f;
+    // dB^2 per second the true level may drift (walking around)
+    private static final float PROCESS_VARIANCE_PER_SEC = 2f;
+    // Spread at which the confidence reaches zero
+    private static final float MAX_SPREAD = 12f;
+
+    private final int mode;
+    private final int[] history = new int[HISTORY];
+    private int head;
+    private int count;
+    private int sum;
+    private int sumSq;
+
+    private float estimate;
+    private float variance;
+    private long lastTime;
+    private int missed;
+
+    public RssiFilter(int mode) {
+        this.mode = mode;
+    }
+
+    public float update(int level, long timeMillis) {
+        if (count == HISTORY) {
+            int old = history[head];
+            sum -= old;
+            sumSq -= old * old;
+        } else {
+            count++;
+        }
+        history[head] = level;
+        head = (head + 1) % HISTORY;
+        sum += level;
+        sumSq += level * level;
+        missed = 0;
+
+        if (count == 1) {
+            estimate = level;
+            variance = MEASUREMENT_VARIANCE;
+        } else if (mode == MODE_KALMAN) {
+            float dt = Math.max(0, timeMillis - lastTime) / 1000f;
+            variance += PROCESS_VARIANCE_PER_SEC * dt;
+            float gain = variance / (variance + MEASUREMENT_VARIANCE);
+            estimate += gain * (level - estimate);
+            variance *= 1 - gain;
+        } else {
+            estimate += EWMA_ALPHA * (level - estimate);
+        }
+        lastTime = timeMillis;
+        return estimate;
+    }
+
+    // The target was missing from a scan; lowers the confidence until it shows up again
+    public void miss() {
+        missed++;
+    }
+
+    public float getEstimate() {
+        return estimate;
+    }
+
+    public int getSampleCount() {
+        return count;
+    }
+
+    // Standard deviation of the raw samples in the ring
+    public float getSpread() {
+        if (count < 2) return MAX_SPREAD;
+        float mean = (float) sum / count;
+        float var = (float) sumSq / count - mean * mean;
+        return var > 0 ? (float) Math.sqrt(var) : 0;
+    }
+
+    // 0..1: how full the history is, how consistent the samples are, and how fresh
+    public float getConfidence() {
+        if (count == 0) return 0;
+        float fill = (float) count / HISTORY;
+        float consistency = Math.max(0, 1 - getSpread() / MAX_SPREAD);
+        return fill * consistency / (1 + missed);
+    }
+}
@@ -0,0 +1,27 @@
+package com.howling.radar;
+
+import java.util.Arrays;
+
+// One scan's worth of samples, as a ScanSource hands it to the ingestor. The samples are
+// reused from batch to batch; whoever fills it calls clear() and then add() per AP.
+public class ScanBatch {
+    // SystemClock.elapsedRealtimeNanos() / System.currentTimeMillis() of the scan
+    public long elapsedNanos;
+    public long wallTime;
+    public int count;
+    public ScanSample[] samples = new ScanSample[0];
+
+    public void clear() {
+        count = 0;
+    }
+
+    // Next free sample, left holding whatever it had last time; set every field
+    public ScanSample add() {
+        if (count == samples.length) {
+            int cap = Math.max(16, samples.length * 2);
+            samples = Arrays.copyOf(samples, cap);
+            for (int i = count; i < cap; i++) samples[i] = new ScanSample();
+        }
+        return samples[count++];
+    }
+}
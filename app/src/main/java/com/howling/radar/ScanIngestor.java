@@ -0,0 +1,201 @@
+package com.howling.radar;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Scan results -> ScanSnapshot, entirely on a background thread.
+// getScanResults() is a binder call that gets slow with many APs, so the UI thread only ever
+// calls requestIngest(); the renderer picks up the latest snapshot on its next frame.
+// Scans come from a ScanSource: the WifiManager live, or a TracePlayer replaying a recording.
+public class ScanIngestor {
+    private static final String TAG = "ScanIngestor";
+
+    public interface Consumer {
+        // Called on the ingest thread
+        void onSnapshot(ScanSnapshot snapshot);
+    }
+
+    // Roughly three missed scans before a blip is dropped, so it doesn't flicker
+    private static final long TARGET_MAX_AGE = 30000;
+
+    private final ScanSource source;
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    // Broadcast time of the oldest request folded into the pending ingest, 0 when none
+    private final AtomicLong pendingSince = new AtomicLong();
+    private final AtomicReference<ScanSnapshot> latest = new AtomicReference<>(ScanSnapshot.EMPTY);
+    private volatile Consumer consumer;
+    // Latest device heading, stamped onto history records
+    private volatile float heading;
+    private volatile RadarStats stats;
+
+    // Only touched on the ingest thread
+    private final TargetTracker tracker = new TargetTracker(TARGET_MAX_AGE);
+    private final ChannelAggregator channels = new ChannelAggregator();
+    // Written on the ingest thread; readers may query it from anywhere
+    private volatile HistoryLog history;
+    // Set on the ingest thread, read by setHeading on the UI thread
+    private volatile TraceRecorder recorder;
+
+    public ScanIngestor(ScanSource source) {
+        this.source = source;
+        thread = new HandlerThread("ScanIngest", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        tracker.setListener(channels);
+    }
+
+    public void setConsumer(Consumer consumer) {
+        this.consumer = consumer;
+    }
+
+    public void setHeading(float azimuth) {
+        heading = azimuth;
+        TraceRecorder r = recorder;
+        if (r != null) r.onHeading(SystemClock.elapsedRealtimeNanos(), azimuth);
+    }
+
+    public void setStats(RadarStats stats) {
+        this.stats = stats;
+    }
+
+    // Opens (or continues) the survey log on the ingest thread; every observation is appended
+    public void openHistory(File logFile) {
+        handler.post(() -> {
+            closeHistory();
+            try {
+                history = HistoryLog.open(logFile);
+            } catch (IOException e) {
+                Log.e(TAG, "History log unavailable", e);
+            }
+        });
+    }
+
+    // Records every scan read from here on, plus headings, for TracePlayer
+    public void startRecording(File traceFile) {
+        handler.post(() -> {
+            stopRecording();
+            try {
+                recorder = TraceRecorder.open(traceFile);
+            } catch (IOException e) {
+                Log.e(TAG, "Trace recording unavailable", e);
+            }
+        });
+    }
+
+    // Null until openHistory has run
+    public HistoryLog getHistory() {
+        return history;
+    }
+
+    private void closeHistory() {
+        if (history == null) return;
+        try {
+            history.close();
+        } catch (IOException e) {
+            Log.e(TAG, "History log close failed", e);
+        }
+        history = null;
+    }
+
+    private void stopRecording() {
+        TraceRecorder r = recorder;
+        if (r == null) return;
+        recorder = null;
+        try {
+            r.close();
+            if (r.getDroppedHeadings() > 0) Log.w(TAG, "Trace dropped " + r.getDroppedHeadings() + " headings");
+        } catch (IOException e) {
+            Log.e(TAG, "Trace close failed", e);
+        }
+    }
+
+    public ScanSnapshot getSnapshot() {
+        return latest.get();
+    }
+
+    // Safe from any thread; back-to-back broadcasts collapse into one ingest.
+    // receivedNanos is SystemClock.elapsedRealtimeNanos() at the broadcast, for scan-to-render latency
+    public void requestIngest(long receivedNanos) {
+        pendingSince.compareAndSet(0, receivedNanos);
+        if (pending.compareAndSet(false, true)) {
+            handler.post(ingestTask);
+        }
+    }
+
+    public void quit() {
+        handler.removeCallbacksAndMessages(null);
+        handler.post(() -> {
+            closeHistory();
+            stopRecording();
+        });
+        thread.quitSafely();
+    }
+
+    private final Runnable ingestTask = new Runnable() {
+        @Override
+        public void run() {
+            pending.set(false);
+            long requested = pendingSince.getAndSet(0);
+            long start = System.nanoTime();
+            ScanBatch batch = source.read();
+            if (batch == null) return;
+            if (recorder != null) record(batch);
+            ingest(batch, requested);
+            RadarStats s = stats;
+            if (s != null) s.onIngest(System.nanoTime() - start);
+        }
+    };
+
+    private void ingest(ScanBatch batch, long requestedNanos) {
+        Trace.beginSection("ScanIngestor.merge");
+        long wallTime = batch.wallTime;
+        tracker.beginScan(batch.elapsedNanos / 1_000_000);
+        float azimuth = heading;
+        for (int i = 0; i < batch.count; i++) {
+            ScanSample sample = batch.samples[i];
+            tracker.merge(sample);
+            appendHistory(wallTime, sample.mac, sample.level, sample.frequency, azimuth);
+        }
+        tracker.endScan();
+        // One header write per scan batch rather than per record
+        if (history != null) history.commit();
+        Trace.endSection();
+
+        Trace.beginSection("ScanIngestor.capture");
+        ScanSnapshot snapshot = ScanSnapshot.capture(tracker, channels, wallTime, requestedNanos);
+        Trace.endSection();
+        latest.set(snapshot);
+        Consumer c = consumer;
+        if (c != null) c.onSnapshot(snapshot);
+    }
+
+    private void record(ScanBatch batch) {
+        try {
+            recorder.onScan(batch);
+        } catch (IOException e) {
+            Log.e(TAG, "Trace write failed, recording stopped", e);
+            stopRecording();
+        }
+    }
+
+    private void appendHistory(long wallTime, long mac, int level, int frequency, float azimuth) {
+        if (history == null) return;
+        try {
+            history.append(wallTime, mac, level, frequency, azimuth);
+        } catch (IOException e) {
+            Log.e(TAG, "History append failed, logging stopped", e);
+            closeHistory();
+        }
+    }
+}
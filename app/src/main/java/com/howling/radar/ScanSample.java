@@ -0,0 +1,16 @@
+package com.howling.radar;
+
+// One AP from one scan, Android-free so the tracker can be fed from anything.
+// Callers reuse a single instance per batch; TargetTracker copies what it keeps.
+public class ScanSample {
+    public long mac = MacAddress.INVALID;
+    public String bssid;
+    public String ssid;
+    public String capabilities;
+    public int level;
+    public int frequency;
+    public int channelWidth;
+    // ScanResult.centerFreq0/1; 0 when not reported
+    public int centerFreq0;
+    public int centerFreq1;
+}
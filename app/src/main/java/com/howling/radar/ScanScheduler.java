@@ -0,0 +1,171 @@
+package com.howling.radar;
+
+// Decides when the next WifiManager.startScan() should go out.
+// Android 9+ throttles foreground apps to 4 scans per 2 minutes and just returns false past that,
+// so this keeps its own view of the budget, backs off after rejections, and spends the budget
+// faster while the phone is moving than while it sits still. With the throttle on, a phone that
+// sits still only uses half the budget, one scan per half window, and keeps the other half in
+// reserve; motion spends the reserve straight away and then paces at one scan per quarter window
+// rather than bursting at MOVING_INTERVAL and stalling until the oldest scan expires.
+public class ScanScheduler {
+    public static final int THROTTLE_MAX_SCANS = 4;
+    public static final long THROTTLE_WINDOW = 120_000;
+
+    private static final long MOVING_INTERVAL = 5_000;
+    private static final long STATIONARY_INTERVAL = 30_000;
+    // Throttle slots a stationary phone leaves free for when it starts moving
+    private static final int STATIONARY_RESERVE = 2;
+    // Survey with the UI closed: each scan is a CPU wakeup, so fewer of them for a predictable
+    // battery cost over hours
+    private static final long BACKGROUND_MOVING_INTERVAL = 15_000;
+    private static final long BACKGROUND_STATIONARY_INTERVAL = 60_000;
+    private static final long BACKOFF_MIN = 15_000;
+    private static final long BACKOFF_MAX = THROTTLE_WINDOW;
+
+    // Still counts as moving this long after the last shake
+    private static final long MOTION_HOLD = 10_000;
+    // m/s^2 of smoothed |accel| - g deviation that means "walking"
+    private static final float MOTION_THRESHOLD = 0.6f;
+    private static final float GRAVITY = 9.81f;
+
+    private boolean throttleEnabled = true;
+    private boolean background;
+    private final long[] accepted = new long[THROTTLE_MAX_SCANS];
+    private final long[] windowScans = new long[THROTTLE_MAX_SCANS];
+    private int acceptedHead;
+    private int acceptedCount;
+
+    private long lastRequest = Long.MIN_VALUE;
+    private long lastRejection;
+    private long backoff;
+
+    private float motionLevel;
+    private long lastMotion = Long.MIN_VALUE;
+
+    private long pendingSince = -1;
+    private long lastLatency;
+    private long totalLatency;
+    private int latencySamples;
+
+    private int requestCount;
+    private int acceptedTotal;
+    private int throttledCount;
+    private int resultCount;
+    private int failedResultCount;
+
+    public void setThrottleEnabled(boolean enabled) {
+        throttleEnabled = enabled;
+    }
+
+    public void setBackground(boolean background) {
+        this.background = background;
+    }
+
+    public long nextDelayMillis(long now) {
+        if (lastRequest == Long.MIN_VALUE) return 0;
+        boolean moving = isMoving(now);
+        long interval;
+        if (background) interval = moving ? BACKGROUND_MOVING_INTERVAL : BACKGROUND_STATIONARY_INTERVAL;
+        else interval = moving ? MOVING_INTERVAL : STATIONARY_INTERVAL;
+        long earliest = lastRequest + interval;
+
+        if (throttleEnabled) {
+            // Accepted scans still in the window, oldest first
+            int inWindow = 0;
+            for (int k = acceptedCount; k > 0; k--) {
+                long t = accepted[(acceptedHead - k + THROTTLE_MAX_SCANS) % THROTTLE_MAX_SCANS];
+                if (now - t < THROTTLE_WINDOW) windowScans[inWindow++] = t;
+            }
+            if (moving) {
+                // n scans in the window may use n/4 of it, counted from the oldest: whatever the
+                // stationary pacing left over goes out at once, then one per THROTTLE_WINDOW / 4
+                if (inWindow > 0) {
+                    earliest = Math.max(earliest, windowScans[0] + THROTTLE_WINDOW * inWindow / THROTTLE_MAX_SCANS);
+                }
+            } else {
+                // Paced over the unreserved slots, and never more of them in the window
+                int budget = THROTTLE_MAX_SCANS - STATIONARY_RESERVE;
+                if (inWindow > 0) {
+                    earliest = Math.max(earliest, windowScans[inWindow - 1] + THROTTLE_WINDOW / budget);
+                }
+                if (inWindow >= budget) {
+                    earliest = Math.max(earliest, windowScans[inWindow - budget] + THROTTLE_WINDOW);
+                }
+            }
+        }
+        if (backoff > 0) {
+            earliest = Math.max(earliest, lastRejection + backoff);
+        }
+        return Math.max(0, earliest - now);
+    }
+
+    public void onScanRequested(long now, boolean wasAccepted) {
+        lastRequest = now;
+        requestCount++;
+        if (wasAccepted) {
+            acceptedTotal++;
+            accepted[acceptedHead] = now;
+            acceptedHead = (acceptedHead + 1) % THROTTLE_MAX_SCANS;
+            if (acceptedCount < THROTTLE_MAX_SCANS) acceptedCount++;
+            backoff = 0;
+            pendingSince = now;
+        } else {
+            throttledCount++;
+            lastRejection = now;
+            backoff = backoff == 0 ? BACKOFF_MIN : Math.min(BACKOFF_MAX, backoff * 2);
+        }
+    }
+
+    // SCAN_RESULTS_AVAILABLE_ACTION; updated=false means the scan failed and results are stale
+    public void onScanResults(long now, boolean updated) {
+        if (updated) resultCount++;
+        else failedResultCount++;
+        if (pendingSince >= 0) {
+            lastLatency = now - pendingSince;
+            totalLatency += lastLatency;
+            latencySamples++;
+            pendingSince = -1;
+        }
+    }
+
+    // Raw accelerometer sample; returns true when this sample flips stationary -> moving
+    public boolean onAccelerometer(long now, float x, float y, float z) {
+        boolean wasMoving = isMoving(now);
+        float deviation = Math.abs((float) Math.sqrt(x * x + y * y + z * z) - GRAVITY);
+        motionLevel += 0.1f * (deviation - motionLevel);
+        if (motionLevel > MOTION_THRESHOLD) lastMotion = now;
+        return !wasMoving && isMoving(now);
+    }
+
+    public boolean isMoving(long now) {
+        return lastMotion != Long.MIN_VALUE && now - lastMotion < MOTION_HOLD;
+    }
+
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    public int getAcceptedCount() {
+        return acceptedTotal;
+    }
+
+    public int getThrottledCount() {
+        return throttledCount;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public int getFailedResultCount() {
+        return failedResultCount;
+    }
+
+    public long getLastLatencyMillis() {
+        return lastLatency;
+    }
+
+    public long getAverageLatencyMillis() {
+        return latencySamples > 0 ? totalLatency / latencySamples : 0;
+    }
+}
@@ -0,0 +1,109 @@
+package com.howling.radar;
+
+// Immutable view of the tracked targets after one scan. Built on the ingest thread and handed to
+// the renderer through an AtomicReference; nothing in here is written after publish.
+public class ScanSnapshot {
+    public static final ScanSnapshot EMPTY = new ScanSnapshot(0, 0, 0, 0, 0, new ChannelOccupancy());
+
+    public final int seq;
+    public final long scanTime;
+    // System.currentTimeMillis() at scanTime, for turning the elapsed-realtime stamps into dates
+    public final long wallTime;
+    public final int count;
+    // elapsedRealtimeNanos of the scan broadcast this snapshot answers, 0 if unknown
+    public final long requestedNanos;
+
+    public final long[] mac;
+    public final String[] bssid;
+    public final String[] ssid;
+    public final String[] shortName;
+    public final String[] capabilities;
+    public final Capabilities[] security;
+    public final String[] vendor;
+    public final int[] level;
+    // RssiFilter output: smoothed dBm, 0..1 confidence, and the path-loss distance from it
+    public final float[] smoothedLevel;
+    public final float[] confidence;
+    public final float[] distance;
+    public final int[] frequency;
+    public final int[] band;
+    public final int[] channel;
+    public final int[] channelWidth;
+    public final int[] centerFreq0;
+    public final int[] centerFreq1;
+    public final long[] firstSeen;
+    public final long[] lastSeen;
+
+    // Per-channel load of the targets above, from ChannelAggregator; read-only
+    public final ChannelOccupancy occupancy;
+
+    private final LongIntMap indexByMac;
+
+    private ScanSnapshot(int seq, long scanTime, long wallTime, long requestedNanos, int count,
+                         ChannelOccupancy occupancy) {
+        this.seq = seq;
+        this.scanTime = scanTime;
+        this.wallTime = wallTime;
+        this.requestedNanos = requestedNanos;
+        this.count = count;
+        this.occupancy = occupancy;
+        mac = new long[count];
+        bssid = new String[count];
+        ssid = new String[count];
+        shortName = new String[count];
+        capabilities = new String[count];
+        security = new Capabilities[count];
+        vendor = new String[count];
+        level = new int[count];
+        smoothedLevel = new float[count];
+        confidence = new float[count];
+        distance = new float[count];
+        frequency = new int[count];
+        band = new int[count];
+        channel = new int[count];
+        channelWidth = new int[count];
+        centerFreq0 = new int[count];
+        centerFreq1 = new int[count];
+        firstSeen = new long[count];
+        lastSeen = new long[count];
+        indexByMac = new LongIntMap(count, -1);
+    }
+
+    public static ScanSnapshot capture(TargetTracker tracker, ChannelAggregator channels, long wallTime,
+                                       long requestedNanos) {
+        ScanSnapshot s = new ScanSnapshot(tracker.getScanSeq(), tracker.getScanTime(), wallTime, requestedNanos,
+                tracker.size(), channels.snapshot());
+        for (int i = 0; i < s.count; i++) {
+            TrackedTarget t = tracker.get(i);
+            s.mac[i] = t.mac;
+            s.bssid[i] = t.bssid;
+            s.ssid[i] = t.ssid;
+            s.shortName[i] = WifiFormat.shortName(t.ssid);
+            s.capabilities[i] = t.capabilities;
+            s.security[i] = Capabilities.of(t.capabilities);
+            s.vendor[i] = VendorLookup.getVendor(t.mac);
+            s.level[i] = t.level;
+            s.smoothedLevel[i] = t.rssi.getEstimate();
+            s.confidence[i] = t.rssi.getConfidence();
+            s.distance[i] = PathLoss.distanceMeters(s.smoothedLevel[i], t.frequency);
+            s.frequency[i] = t.frequency;
+            s.band[i] = WifiChannel.band(t.frequency);
+            s.channel[i] = WifiChannel.channel(t.frequency);
+            s.channelWidth[i] = t.channelWidth;
+            s.centerFreq0[i] = t.centerFreq0;
+            s.centerFreq1[i] = t.centerFreq1;
+            s.firstSeen[i] = t.firstSeen;
+            s.lastSeen[i] = t.lastSeen;
+            s.indexByMac.put(t.mac, i);
+        }
+        return s;
+    }
+
+    public long toWallTime(long elapsedMillis) {
+        return wallTime - (scanTime - elapsedMillis);
+    }
+
+    public int indexOf(long mac) {
+        return mac == MacAddress.INVALID ? -1 : indexByMac.get(mac);
+    }
+}
@@ -0,0 +1,9 @@
+package com.howling.radar;
+
+// Where ScanIngestor gets its scans: WifiScanSource for live hardware, TracePlayer for a recorded
+// session. read() runs on the ingest thread each time ScanIngestor.requestIngest is honoured.
+public interface ScanSource {
+    // The latest scan, or null when there's nothing to ingest. The batch belongs to the source
+    // and stays valid until the next read().
+    ScanBatch read();
+}
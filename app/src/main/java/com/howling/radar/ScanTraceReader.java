@@ -0,0 +1,128 @@
+package com.howling.radar;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// Reads a ScanTraceWriter trace back one record at a time. Scans are decoded into a caller's
+// ScanBatch with the strings shared from the trace's string table, so after the first pass
+// through the APs a scan decodes without allocating. A trace cut short by a killed process
+// ends at its last complete record.
+public class ScanTraceReader implements AutoCloseable {
+    public static final int END = 0;
+    public static final int SCAN = ScanTraceWriter.RECORD_SCAN;
+    public static final int HEADING = ScanTraceWriter.RECORD_HEADING;
+
+    private final DataInputStream in;
+    private final long startElapsedNanos;
+    private final long startWallMillis;
+    private long timeNanos;
+    private float heading;
+
+    private String[] strings = new String[256];
+    // MacAddress.parse of each string, for the ones used as a BSSID; 0 = not parsed yet
+    private long[] macs = new long[256];
+    private int stringCount;
+
+    public ScanTraceReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        if (this.in.readInt() != ScanTraceWriter.MAGIC) throw new IOException("Not a scan trace");
+        int version = this.in.readInt();
+        if (version != ScanTraceWriter.VERSION) throw new IOException("Unsupported trace version " + version);
+        startElapsedNanos = this.in.readLong();
+        startWallMillis = this.in.readLong();
+        timeNanos = startElapsedNanos;
+    }
+
+    public long getStartElapsedNanos() {
+        return startElapsedNanos;
+    }
+
+    // elapsedRealtimeNanos of the last record, as it was recorded
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    // Azimuth of the last HEADING record
+    public float getHeading() {
+        return heading;
+    }
+
+    // SCAN fills batch, HEADING sets getHeading(); END at the end of the trace
+    public int next(ScanBatch batch) throws IOException {
+        try {
+            int type = in.read();
+            if (type < 0) return END;
+            timeNanos += readVarint() * 1000;
+            switch (type) {
+                case SCAN:
+                    readScan(batch);
+                    return SCAN;
+                case HEADING:
+                    heading = in.readChar() / 100f;
+                    return HEADING;
+                default:
+                    throw new IOException("Corrupt trace: record type " + type);
+            }
+        } catch (EOFException e) {
+            return END;
+        }
+    }
+
+    private void readScan(ScanBatch batch) throws IOException {
+        long relativeMillis = (timeNanos - startElapsedNanos) / 1_000_000;
+        batch.clear();
+        batch.elapsedNanos = timeNanos;
+        batch.wallTime = startWallMillis + relativeMillis + readZigzag();
+        int count = (int) readVarint();
+        for (int i = 0; i < count; i++) {
+            ScanSample s = batch.add();
+            int bssid = readString();
+            if (macs[bssid] == 0) macs[bssid] = MacAddress.parse(strings[bssid]);
+            s.mac = macs[bssid];
+            s.bssid = strings[bssid];
+            s.ssid = strings[readString()];
+            s.capabilities = strings[readString()];
+            s.level = (int) readZigzag();
+            s.frequency = (int) readVarint();
+            s.channelWidth = (int) readVarint();
+            s.centerFreq0 = (int) readVarint();
+            s.centerFreq1 = (int) readVarint();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int readString() throws IOException {
+        long index = readVarint();
+        if (index < stringCount) return (int) index;
+        if (index != stringCount) throw new IOException("Corrupt trace: string " + index);
+        if (stringCount == strings.length) {
+            strings = Arrays.copyOf(strings, stringCount * 2);
+            macs = Arrays.copyOf(macs, stringCount * 2);
+        }
+        strings[stringCount] = in.readUTF();
+        return stringCount++;
+    }
+
+    private long readZigzag() throws IOException {
+        long v = readVarint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private long readVarint() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Corrupt trace: varint too long");
+    }
+}
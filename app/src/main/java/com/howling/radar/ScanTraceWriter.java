@@ -0,0 +1,118 @@
+package com.howling.radar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+
+// Compact binary trace of a session's scans and headings, read back by ScanTraceReader.
+//
+//   header   int magic, int version, long startElapsedNanos, long startWallMillis
+//   record   byte type, varint micros since the previous record, then
+//     SCAN     zigzag wall clock drift (ms), varint count, per AP:
+//              string bssid, string ssid, string capabilities, zigzag level,
+//              varint frequency, channelWidth, centerFreq0, centerFreq1
+//     HEADING  char azimuth * 100
+//   string   varint index into the strings seen so far; the next unused index is a new
+//            string and its modified UTF-8 follows
+//
+// A 500 AP scan is ~5 KB the first time and ~8 bytes per AP after that, since BSSIDs, SSIDs and
+// capability strings repeat scan after scan. Not thread-safe; TraceRecorder serializes writes.
+public class ScanTraceWriter implements AutoCloseable {
+    static final int MAGIC = 0x57545243; // "WTRC"
+    static final int VERSION = 1;
+    static final int RECORD_SCAN = 1;
+    static final int RECORD_HEADING = 2;
+
+    private final DataOutputStream out;
+    private final HashMap<String, Integer> strings = new HashMap<>();
+    private boolean started;
+    private long startElapsedNanos;
+    private long startWallMillis;
+    private long lastNanos;
+
+    public ScanTraceWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+    }
+
+    public void writeScan(ScanBatch batch) throws IOException {
+        if (!started) start(batch.elapsedNanos, batch.wallTime);
+        long relative = writeTime(RECORD_SCAN, batch.elapsedNanos);
+        writeZigzag(batch.wallTime - (startWallMillis + relative / 1_000_000));
+        writeVarint(batch.count);
+        for (int i = 0; i < batch.count; i++) {
+            ScanSample s = batch.samples[i];
+            writeString(s.bssid);
+            writeString(s.ssid);
+            writeString(s.capabilities);
+            writeZigzag(s.level);
+            writeVarint(s.frequency);
+            writeVarint(s.channelWidth);
+            writeVarint(s.centerFreq0);
+            writeVarint(s.centerFreq1);
+        }
+    }
+
+    // Headings before the first scan have no wall clock to anchor to and are dropped
+    public void writeHeading(long elapsedNanos, float azimuth) throws IOException {
+        if (!started) return;
+        writeTime(RECORD_HEADING, elapsedNanos);
+        out.writeChar((char) Math.round(HeadingFilter.normalize(azimuth) * 100));
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void start(long elapsedNanos, long wallTime) throws IOException {
+        started = true;
+        startElapsedNanos = elapsedNanos;
+        startWallMillis = wallTime;
+        lastNanos = elapsedNanos;
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(elapsedNanos);
+        out.writeLong(wallTime);
+    }
+
+    // Returns the record's time since the start of the trace, as the reader will see it
+    private long writeTime(int type, long elapsedNanos) throws IOException {
+        // Headings and scans are stamped on different threads; a late stamp just rides along
+        long deltaMicros = Math.max(0, (elapsedNanos - lastNanos) / 1000);
+        lastNanos += deltaMicros * 1000;
+        out.writeByte(type);
+        writeVarint(deltaMicros);
+        return lastNanos - startElapsedNanos;
+    }
+
+    private void writeString(String s) throws IOException {
+        if (s == null) s = "";
+        Integer index = strings.get(s);
+        if (index != null) {
+            writeVarint(index);
+            return;
+        }
+        int next = strings.size();
+        strings.put(s, next);
+        writeVarint(next);
+        out.writeUTF(s);
+    }
+
+    private void writeZigzag(long v) throws IOException {
+        writeVarint((v << 1) ^ (v >> 63));
+    }
+
+    private void writeVarint(long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+}
@@ -0,0 +1,90 @@
+package com.howling.radar;
+
+// Picks the heading sensor rate. The radar only consumes heading once per frame, so full rate
+// is only worth it while the phone is turning; a steady heading, an open popup, the channel
+// chart (heading only stamps history there), a dimmed screen or a survey running with the UI
+// closed drop to slower sampling with hardware FIFO batching so the CPU can sleep between flushes.
+public class SensorRatePolicy {
+    public static final int MODE_FAST = 0;
+    public static final int MODE_STABLE = 1;
+    public static final int MODE_LOW = 2;
+
+    private static final int[] PERIOD_US = {20_000, 66_000, 200_000};
+    // 0 = deliver every event immediately; batching only makes sense once we're not chasing a turn
+    private static final int[] MAX_REPORT_LATENCY_US = {0, 250_000, 1_000_000};
+    private static final String[] NAMES = {"fast", "stable", "low"};
+
+    // deg/s below which the heading counts as steady, and for how long before slowing down
+    private static final float STABLE_RATE = 5f;
+    private static final long STABLE_HOLD = 3_000;
+
+    private boolean popupOpen;
+    private boolean screenDimmed;
+    private boolean chartShown;
+    private boolean background;
+    private long stableSince = -1;
+    private int mode = MODE_FAST;
+
+    // Heading turn rate from the filter; returns true when the mode changed
+    public boolean onHeadingRate(long now, float degreesPerSecond) {
+        if (Math.abs(degreesPerSecond) < STABLE_RATE) {
+            if (stableSince < 0) stableSince = now;
+        } else {
+            stableSince = -1;
+        }
+        return evaluate(now);
+    }
+
+    public boolean setPopupOpen(long now, boolean open) {
+        popupOpen = open;
+        return evaluate(now);
+    }
+
+    public boolean setScreenDimmed(long now, boolean dimmed) {
+        screenDimmed = dimmed;
+        return evaluate(now);
+    }
+
+    public boolean setChartShown(long now, boolean shown) {
+        chartShown = shown;
+        return evaluate(now);
+    }
+
+    public boolean setBackground(long now, boolean background) {
+        this.background = background;
+        return evaluate(now);
+    }
+
+    // Forgets the turn history but keeps the flags, so a start in the background or with the
+    // chart up registers at the low rate straight away
+    public void reset(long now) {
+        stableSince = -1;
+        evaluate(now);
+    }
+
+    private boolean evaluate(long now) {
+        int next;
+        if (popupOpen || screenDimmed || chartShown || background) next = MODE_LOW;
+        else if (stableSince >= 0 && now - stableSince >= STABLE_HOLD) next = MODE_STABLE;
+        else next = MODE_FAST;
+        if (next == mode) return false;
+        mode = next;
+        return true;
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    public int getPeriodUs() {
+        return PERIOD_US[mode];
+    }
+
+    public int getMaxReportLatencyUs() {
+        return MAX_REPORT_LATENCY_US[mode];
+    }
+
+    public static String modeName(int mode) {
+        return NAMES[mode];
+    }
+}
@@ -0,0 +1,340 @@
+package com.howling.radar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Streams tracked targets, per-channel occupancy and the observation history out as CSV or newline-delimited JSON.
+// Rows are built in one reused StringBuilder and encoded through a fixed 64 KB buffer straight
+// into the channel, and history is read record by record from the mmapped log, so memory stays
+// flat however long the survey ran. Per-target RSSI stats come from one pass over the log range
+// and can be handed to the next exporter so a second format doesn't repeat it.
+// The log keeps no SSIDs, so observation rows carry the BSSID only (empty ssid cell in CSV, no
+// ssid key in NDJSON); names for BSSIDs still tracked are on the target rows.
+public class SurveyExporter {
+    public static final int FORMAT_CSV = 0;
+    public static final int FORMAT_NDJSON = 1;
+
+    public interface ProgressListener {
+        // Called on the export thread
+        void onProgress(long rowsDone, long rowsTotal);
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 4096;
+
+    private static final Executor EXPORTER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "SurveyExport");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int format;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private volatile ProgressListener progressListener;
+
+    private final StringBuilder row = new StringBuilder(256);
+    private final ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(1024);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private volatile HistoryStats stats;
+    private WritableByteChannel channel;
+    private long rowsDone;
+    // Upper bound for progress: the whole log, not just the requested range
+    private long rowsTotal;
+
+    public SurveyExporter(int format) {
+        this.format = format;
+    }
+
+    public void setProgressListener(ProgressListener listener) {
+        progressListener = listener;
+    }
+
+    // Checked between rows; the future then fails with CancellationException
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    // Targets from the snapshot, then every history record in [from, to). history may be null.
+    // The channel is closed when the export ends, whichever way it ends.
+    public CompletableFuture<Long> exportAsync(ScanSnapshot snapshot, HistoryLog history,
+                                               long fromMillis, long toMillis, WritableByteChannel target) {
+        return exportAsync(snapshot, history, null, fromMillis, toMillis, target);
+    }
+
+    // Reuses stats from an earlier export of the same snapshot and range (see getHistoryStats);
+    // null or a mismatch collects them again
+    public CompletableFuture<Long> exportAsync(ScanSnapshot snapshot, HistoryLog history, HistoryStats stats,
+                                               long fromMillis, long toMillis, WritableByteChannel target) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        EXPORTER.execute(() -> {
+            try (WritableByteChannel c = target) {
+                future.complete(export(snapshot, history, stats, fromMillis, toMillis, c));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // Runs on the calling thread; returns the number of rows written
+    public long export(ScanSnapshot snapshot, HistoryLog history, HistoryStats reuse, long fromMillis, long toMillis,
+                       WritableByteChannel target) throws IOException {
+        try {
+            if (reuse == null || !reuse.covers(snapshot, fromMillis, toMillis)) {
+                reuse = collectStats(snapshot, history, fromMillis, toMillis);
+            }
+            stats = reuse;
+            return exportRows(snapshot, history, fromMillis, toMillis, target);
+        } catch (ExportIOException e) {
+            throw (IOException) e.getCause();
+        } finally {
+            channel = null;
+        }
+    }
+
+    // Valid once an export has got past its stats pass
+    public HistoryStats getHistoryStats() {
+        return stats;
+    }
+
+    private HistoryStats collectStats(ScanSnapshot snapshot, HistoryLog history, long fromMillis, long toMillis) {
+        HistoryStats collected = new HistoryStats(snapshot, fromMillis, toMillis);
+        if (history != null) {
+            history.query(fromMillis, toMillis, (time, mac, rssi, frequency, heading) -> {
+                if (cancelled.get()) throw new CancellationException("Export cancelled");
+                collected.add(mac, rssi);
+            });
+        }
+        return collected;
+    }
+
+    private long exportRows(ScanSnapshot snapshot, HistoryLog history, long fromMillis, long toMillis,
+                            WritableByteChannel target) throws IOException {
+        channel = target;
+        rowsDone = 0;
+        rowsTotal = snapshot.count + (history != null ? history.size() : 0);
+        out.clear();
+        encoder.reset();
+
+        if (format == FORMAT_CSV) {
+            writeRow(row.append("type,bssid,ssid,vendor,security,band,channel,frequency,width_mhz,rssi,"
+                    + "rssi_smoothed,rssi_min,rssi_max,rssi_mean,samples,confidence,distance_m,time_ms,heading,"
+                    + "aps_primary,aps_covering"));
+        }
+        for (int i = 0; i < snapshot.count; i++) {
+            writeTarget(snapshot, i);
+        }
+        ChannelOccupancy occupancy = snapshot.occupancy;
+        for (int band = 1; band < WifiChannel.MAX_CHANNEL.length; band++) {
+            for (int ch = 1; ch < occupancy.channelSlots(band); ch++) {
+                if (occupancy.covering(band, ch) > 0) writeChannel(snapshot, band, ch);
+            }
+        }
+        if (history != null) {
+            history.query(fromMillis, toMillis, this::writeObservation);
+        }
+        flushBuffer(true);
+        reportProgress();
+        return rowsDone;
+    }
+
+    private void writeTarget(ScanSnapshot s, int i) {
+        HistoryStats h = stats;
+        int samples = h.count(i);
+        // Looked up now rather than taken from the snapshot, which may predate the OUI index loading
+        String vendor = VendorLookup.getVendor(s.mac[i]);
+        int widthMhz = WifiChannel.widthMhz(s.channelWidth[i]);
+
+        if (format == FORMAT_CSV) {
+            row.append("target,").append(s.bssid[i]).append(',');
+            csv(s.ssid[i]).append(',');
+            csv(vendor).append(',');
+            csv(s.security[i].detail).append(',');
+            row.append(WifiChannel.bandName(s.band[i])).append(',').append(s.channel[i]).append(',');
+            row.append(s.frequency[i]).append(',').append(widthMhz).append(',').append(s.level[i]).append(',');
+            row.append(Math.round(s.smoothedLevel[i] * 10) / 10f).append(',');
+            if (samples > 0) {
+                row.append(h.min(i)).append(',').append(h.max(i)).append(',').append(h.mean(i)).append(',');
+            } else {
+                row.append(",,,");
+            }
+            row.append(samples).append(',');
+            row.append(Math.round(s.confidence[i] * 100) / 100f).append(',');
+            row.append(Math.round(s.distance[i] * 10) / 10f).append(',');
+            row.append(s.toWallTime(s.lastSeen[i])).append(",,,");
+        } else {
+            row.append("{\"type\":\"target\",\"bssid\":");
+            json(s.bssid[i]).append(",\"ssid\":");
+            json(s.ssid[i]).append(",\"vendor\":");
+            json(vendor).append(",\"security\":");
+            json(s.security[i].detail).append(",\"band\":");
+            json(WifiChannel.bandName(s.band[i])).append(",\"channel\":").append(s.channel[i]);
+            row.append(",\"frequency\":").append(s.frequency[i]);
+            row.append(",\"width_mhz\":").append(widthMhz);
+            row.append(",\"rssi\":").append(s.level[i]);
+            row.append(",\"rssi_smoothed\":").append(Math.round(s.smoothedLevel[i] * 10) / 10f);
+            if (samples > 0) {
+                row.append(",\"rssi_min\":").append(h.min(i));
+                row.append(",\"rssi_max\":").append(h.max(i));
+                row.append(",\"rssi_mean\":").append(h.mean(i));
+            }
+            row.append(",\"samples\":").append(samples);
+            row.append(",\"confidence\":").append(Math.round(s.confidence[i] * 100) / 100f);
+            row.append(",\"distance_m\":").append(Math.round(s.distance[i] * 10) / 10f);
+            row.append(",\"time_ms\":").append(s.toWallTime(s.lastSeen[i]));
+            row.append('}');
+        }
+        writeRow(row);
+    }
+
+    // One channel of the snapshot's ChannelOccupancy; rssi is the summed power on it, rssi_max the strongest AP
+    private void writeChannel(ScanSnapshot s, int band, int ch) {
+        ChannelOccupancy o = s.occupancy;
+        float power = Math.round(o.powerDbm(band, ch) * 10) / 10f;
+        if (format == FORMAT_CSV) {
+            row.append("channel,,,,,").append(WifiChannel.bandName(band)).append(',').append(ch).append(',');
+            row.append(WifiChannel.frequency(band, ch)).append(",,").append(power).append(",,,");
+            row.append(o.peakDbm(band, ch)).append(",,,,,");
+            row.append(s.wallTime).append(",,").append(o.primary(band, ch)).append(',').append(o.covering(band, ch));
+        } else {
+            row.append("{\"type\":\"channel\",\"band\":");
+            json(WifiChannel.bandName(band)).append(",\"channel\":").append(ch);
+            row.append(",\"frequency\":").append(WifiChannel.frequency(band, ch));
+            row.append(",\"rssi\":").append(power);
+            row.append(",\"rssi_max\":").append(o.peakDbm(band, ch));
+            row.append(",\"time_ms\":").append(s.wallTime);
+            row.append(",\"aps_primary\":").append(o.primary(band, ch));
+            row.append(",\"aps_covering\":").append(o.covering(band, ch));
+            row.append('}');
+        }
+        writeRow(row);
+    }
+
+    private void writeObservation(long time, long mac, int rssi, int frequency, float heading) {
+        String vendor = VendorLookup.getVendor(mac);
+        int band = WifiChannel.band(frequency);
+        int channel = WifiChannel.channel(frequency);
+
+        if (format == FORMAT_CSV) {
+            row.append("observation,");
+            MacAddress.appendTo(row, mac).append(",,");
+            csv(vendor).append(",,");
+            row.append(WifiChannel.bandName(band)).append(',').append(channel).append(',').append(frequency).append(",,");
+            row.append(rssi).append(",,,,,,,,");
+            row.append(time).append(',').append(heading).append(",,");
+        } else {
+            row.append("{\"type\":\"observation\",\"bssid\":\"");
+            MacAddress.appendTo(row, mac).append("\",\"vendor\":");
+            json(vendor).append(",\"band\":");
+            json(WifiChannel.bandName(band)).append(",\"channel\":").append(channel);
+            row.append(",\"frequency\":").append(frequency);
+            row.append(",\"rssi\":").append(rssi);
+            row.append(",\"time_ms\":").append(time);
+            row.append(",\"heading\":").append(heading);
+            row.append('}');
+        }
+        writeRow(row);
+    }
+
+    private StringBuilder csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return row.append(value);
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') row.append('"');
+            row.append(c);
+        }
+        return row.append('"');
+    }
+
+    private StringBuilder json(String value) {
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                row.append('\\').append(c);
+            } else if (c < 0x20) {
+                row.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                row.append(c);
+            }
+        }
+        return row.append('"');
+    }
+
+    // The visitor callbacks can't throw IOException, so it travels out unchecked and is unwrapped here
+    private void writeRow(StringBuilder line) {
+        if (cancelled.get()) throw new CancellationException("Export cancelled");
+        line.append('\n');
+        try {
+            encode(line);
+        } catch (IOException e) {
+            throw new ExportIOException(e);
+        }
+        line.setLength(0);
+        if (++rowsDone % PROGRESS_INTERVAL == 0) reportProgress();
+    }
+
+    private void encode(StringBuilder line) throws IOException {
+        int len = line.length();
+        for (int start = 0; start < len; ) {
+            int n = Math.min(chars.capacity(), len - start);
+            chars.clear();
+            line.getChars(start, start + n, chars.array(), 0);
+            chars.limit(n);
+            // A surrogate pair split at the chunk edge is left in chars and re-read next round
+            while (true) {
+                CoderResult result = encoder.encode(chars, out, false);
+                if (result.isOverflow()) {
+                    flushBuffer(false);
+                } else {
+                    break;
+                }
+            }
+            // Nothing consumed: a lone high surrogate ends the row, drop it
+            start += chars.position() > 0 ? chars.position() : 1;
+        }
+    }
+
+    private void flushBuffer(boolean endOfInput) throws IOException {
+        if (endOfInput) {
+            chars.clear().limit(0);
+            encoder.encode(chars, out, true);
+            encoder.flush(out);
+        }
+        out.flip();
+        while (out.hasRemaining()) channel.write(out);
+        out.clear();
+    }
+
+    private void reportProgress() {
+        ProgressListener l = progressListener;
+        if (l != null) l.onProgress(rowsDone, rowsTotal);
+    }
+
+    private static final class ExportIOException extends RuntimeException {
+        ExportIOException(IOException cause) {
+            super(cause);
+        }
+    }
+}
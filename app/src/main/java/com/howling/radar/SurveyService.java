@@ -0,0 +1,378 @@
+package com.howling.radar;
+
+import android.Manifest;
+import android.app.AlarmManager;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.graphics.drawable.Icon;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.net.wifi.WifiManager;
+import android.os.Binder;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.File;
+import java.util.Locale;
+
+// Owns the live scanning pipeline: scan scheduling, the ingest thread and history log, heading
+// for the history stamps and accelerometer motion for the pacing. Runs in two ways:
+//   bound       by MainActivity for its lifetime; scans only while it's attached (visible),
+//               so a paused radar stops scanning as it always did but keeps its targets
+//   survey      started and in the foreground (location type), keeps capturing with the UI
+//               closed or the screen off until stopped from the notification or the radar
+// An attached Client (MainActivity for RadarView) gets every snapshot and a frame-paced heading.
+// Detached, the service only wakes up to scan: windowed wakeup alarms the system may batch with
+// other wakeups, a wake lock from the scan request to the end of its ingest only, the slower
+// background scan pacing, and heading and accelerometer left to batch in the sensor FIFOs so
+// they're read while the CPU is up anyway.
+public class SurveyService extends Service implements SensorEventListener {
+    private static final String TAG = "SurveyService";
+
+    public static final String ACTION_START_SURVEY = "com.howling.radar.action.START_SURVEY";
+    public static final String ACTION_STOP_SURVEY = "com.howling.radar.action.STOP_SURVEY";
+
+    public interface Client {
+        // Ingest thread
+        void onSnapshot(ScanSnapshot snapshot);
+        // UI thread, at most once per frame
+        void onAzimuthChanged(float azimuth);
+        // UI thread
+        void onSurveyChanged(boolean surveying);
+    }
+
+    public class LocalBinder extends Binder {
+        public SurveyService getService() {
+            return SurveyService.this;
+        }
+    }
+
+    private static final String CHANNEL_ID = "survey";
+    private static final int NOTIFICATION_ID = 1;
+    // Motion detection for scan pacing tolerates seconds of delay, so let the FIFO hold it
+    private static final int MOTION_BATCH_LATENCY_US = 2_000_000;
+    private static final int BACKGROUND_MOTION_BATCH_LATENCY_US = 20_000_000;
+    // A detached scan alarm may fire this share of its delay late, so it can share a wakeup
+    private static final float ALARM_WINDOW_SHARE = 0.25f;
+    private static final long ALARM_WINDOW_MIN = 2_000;
+    // Scan request -> results -> snapshot normally takes a few seconds; the lock never outlives this
+    private static final long SCAN_WAKE_LOCK_TIMEOUT = 15_000;
+
+    private final LocalBinder binder = new LocalBinder();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ScanScheduler scanScheduler = new ScanScheduler();
+    private final EventRateMeter accelRateMeter = new EventRateMeter();
+
+    private WifiManager wifiManager;
+    private SensorManager sensorManager;
+    private AlarmManager alarmManager;
+    private PowerManager.WakeLock scanWakeLock;
+    private ScanIngestor scanIngestor;
+    private OrientationTracker orientationTracker;
+
+    private volatile Client client;
+    private volatile RadarStats stats;
+    // Location permission granted; scanning runs while permitted and attached or surveying
+    private boolean permitted;
+    private boolean scanning;
+    private boolean surveying;
+    // Heading runs while attached, permission or not, so the radar still turns with the compass,
+    // and while scanning, for the history stamps
+    private boolean orienting;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        wifiManager = (WifiManager) getApplicationContext().getSystemService(Context.WIFI_SERVICE);
+        sensorManager = (SensorManager) getSystemService(SENSOR_SERVICE);
+        alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
+        PowerManager powerManager = (PowerManager) getSystemService(POWER_SERVICE);
+        scanWakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "HowlingWave:scan");
+        scanWakeLock.setReferenceCounted(false);
+
+        scanIngestor = new ScanIngestor(new WifiScanSource(wifiManager));
+        scanIngestor.setConsumer(this::onSnapshot);
+        scanIngestor.openHistory(new File(getFilesDir(), "scan_history.log"));
+        orientationTracker = new OrientationTracker(sensorManager, azimuth -> {
+            scanIngestor.setHeading(azimuth);
+            Client c = client;
+            if (c != null) c.onAzimuthChanged(azimuth);
+            RadarStats s = stats;
+            if (s != null) s.setHeadingRate(orientationTracker.getDeliveredRate(), orientationTracker.getRateMode());
+        });
+        // Throttled since Android 9; Android 11+ reports whether developer options turned it off
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            scanScheduler.setThrottleEnabled(wifiManager.isScanThrottleEnabled());
+        } else {
+            scanScheduler.setThrottleEnabled(Build.VERSION.SDK_INT >= Build.VERSION_CODES.P);
+        }
+        updateAttachment();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return binder;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        // Not sticky: a restart after the process is killed would come from the background, where
+        // a location-type foreground service needs ACCESS_BACKGROUND_LOCATION (SecurityException on
+        // Android 14). A killed survey stays stopped until the user starts it again.
+        String action = intent != null ? intent.getAction() : null;
+        if (ACTION_START_SURVEY.equals(action)) {
+            // A location-type foreground service can't start without it
+            if (checkSelfPermission(Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+                Log.w(TAG, "survey not started: no location permission");
+                stopSelf();
+                return START_NOT_STICKY;
+            }
+            startSurvey();
+        } else if (ACTION_STOP_SURVEY.equals(action)) {
+            stopSurvey();
+        }
+        return START_NOT_STICKY;
+    }
+
+    public ScanIngestor getIngestor() {
+        return scanIngestor;
+    }
+
+    public boolean isSurveying() {
+        return surveying;
+    }
+
+    public void setStats(RadarStats stats) {
+        this.stats = stats;
+        scanIngestor.setStats(stats);
+    }
+
+    // UI thread. The client gets the current snapshot right away, then every new one
+    public void attach(Client client) {
+        this.client = client;
+        client.onSnapshot(scanIngestor.getSnapshot());
+        updateAttachment();
+    }
+
+    public void detach() {
+        client = null;
+        updateAttachment();
+    }
+
+    public void setPopupOpen(boolean open) {
+        orientationTracker.setPopupOpen(open);
+    }
+
+    public void setChartShown(boolean shown) {
+        orientationTracker.setChartShown(shown);
+    }
+
+    public void setScreenDimmed(boolean dimmed) {
+        orientationTracker.setScreenDimmed(dimmed);
+    }
+
+    // Once the location permission is granted
+    public void setScanPermitted() {
+        permitted = true;
+        updateScanning();
+    }
+
+    private void updateScanning() {
+        if (permitted && (client != null || surveying)) startScanning();
+        else stopScanning();
+        updateOrientation();
+    }
+
+    private void updateOrientation() {
+        boolean wanted = client != null || scanning;
+        if (wanted == orienting) return;
+        orienting = wanted;
+        if (wanted) orientationTracker.start();
+        else orientationTracker.stop();
+    }
+
+    private void startScanning() {
+        if (scanning) return;
+        scanning = true;
+        registerReceiver(wifiReceiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        registerAccelerometer();
+        scheduleNextScan();
+    }
+
+    private void stopScanning() {
+        if (!scanning) return;
+        scanning = false;
+        try { unregisterReceiver(wifiReceiver); } catch (Exception e) {}
+        sensorManager.unregisterListener(this);
+        Log.i(TAG, "accelerometer: " + accelRateMeter.getTotalEvents() + " events, avg "
+                + String.format(Locale.US, "%.1f", accelRateMeter.getAverageRate()) + "/s");
+        accelRateMeter.reset();
+        handler.removeCallbacks(scanRunnable);
+        alarmManager.cancel(scanAlarm);
+        if (scanWakeLock.isHeld()) scanWakeLock.release();
+    }
+
+    private void startSurvey() {
+        Notification notification = buildNotification();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
+        } else {
+            startForeground(NOTIFICATION_ID, notification);
+        }
+        if (surveying) return;
+        surveying = true;
+        permitted = true;
+        Log.i(TAG, "survey started");
+        updateScanning();
+        Client c = client;
+        if (c != null) c.onSurveyChanged(true);
+    }
+
+    public void stopSurvey() {
+        if (!surveying) return;
+        surveying = false;
+        Log.i(TAG, "survey stopped: " + scanScheduler.getAcceptedCount() + " scans, "
+                + scanScheduler.getThrottledCount() + " throttled");
+        stopForeground(STOP_FOREGROUND_REMOVE);
+        // Destroyed now unless the activity is still around; then it scans while attached
+        stopSelf();
+        updateScanning();
+        Client c = client;
+        if (c != null) c.onSurveyChanged(false);
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        stopScanning();
+        orienting = false;
+        orientationTracker.stop();
+        scanIngestor.quit();
+    }
+
+    // Attached: frame-paced heading and a Handler for scans, the screen is on anyway.
+    // Detached: no frames, slower pacing, and wakeup alarms for the scans.
+    private void updateAttachment() {
+        boolean attached = client != null;
+        scanScheduler.setBackground(!attached);
+        orientationTracker.setFramePaced(attached);
+        orientationTracker.setBackground(!attached);
+        boolean wasScanning = scanning;
+        updateScanning();
+        // Already running: switch the accelerometer batching and the scan timer over
+        if (wasScanning && scanning) {
+            registerAccelerometer();
+            scheduleNextScan();
+        }
+    }
+
+    private void registerAccelerometer() {
+        sensorManager.unregisterListener(this);
+        sensorManager.registerListener(this, sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER),
+                SensorManager.SENSOR_DELAY_NORMAL,
+                client != null ? MOTION_BATCH_LATENCY_US : BACKGROUND_MOTION_BATCH_LATENCY_US);
+    }
+
+    private void scheduleNextScan() {
+        handler.removeCallbacks(scanRunnable);
+        alarmManager.cancel(scanAlarm);
+        long now = SystemClock.elapsedRealtime();
+        long delay = scanScheduler.nextDelayMillis(now);
+        if (client != null) {
+            handler.postDelayed(scanRunnable, delay);
+        } else {
+            long window = Math.max(ALARM_WINDOW_MIN, (long) (delay * ALARM_WINDOW_SHARE));
+            alarmManager.setWindow(AlarmManager.ELAPSED_REALTIME_WAKEUP, now + delay, window, TAG, scanAlarm, handler);
+        }
+    }
+
+    private final Runnable scanRunnable = this::requestScan;
+    private final AlarmManager.OnAlarmListener scanAlarm = this::requestScan;
+
+    private void requestScan() {
+        // Keeps the CPU up until the results are ingested; released in onSnapshot
+        if (client == null) scanWakeLock.acquire(SCAN_WAKE_LOCK_TIMEOUT);
+        // false = rejected by the OS throttle; the scheduler backs off
+        boolean accepted = wifiManager.startScan();
+        scanScheduler.onScanRequested(SystemClock.elapsedRealtime(), accepted);
+        if (!accepted && scanWakeLock.isHeld()) scanWakeLock.release();
+        scheduleNextScan();
+    }
+
+    private final BroadcastReceiver wifiReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            boolean success = intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, false);
+            scanScheduler.onScanResults(SystemClock.elapsedRealtime(), success);
+            if (success) {
+                // getScanResults() + merge happen on the ingest thread, not here
+                scanIngestor.requestIngest(SystemClock.elapsedRealtimeNanos());
+            } else if (scanWakeLock.isHeld()) {
+                scanWakeLock.release();
+            }
+        }
+    };
+
+    // Ingest thread
+    private void onSnapshot(ScanSnapshot snapshot) {
+        Client c = client;
+        if (c != null) c.onSnapshot(snapshot);
+        if (scanWakeLock.isHeld()) scanWakeLock.release();
+    }
+
+    // Accelerometer only, for motion-aware scan pacing; heading comes from OrientationTracker
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        if (event.sensor.getType() != Sensor.TYPE_ACCELEROMETER) return;
+        accelRateMeter.onEvent(event.timestamp);
+        RadarStats s = stats;
+        if (s != null) s.setAccelRate(accelRateMeter.getRate());
+        // Started moving: the next scan can come sooner than the stationary interval
+        if (scanScheduler.onAccelerometer(SystemClock.elapsedRealtime(), event.values[0], event.values[1], event.values[2])
+                && scanning) {
+            scheduleNextScan();
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+
+    private Notification buildNotification() {
+        Notification.Builder builder;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager manager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Survey", NotificationManager.IMPORTANCE_LOW);
+            manager.createNotificationChannel(channel);
+            builder = new Notification.Builder(this, CHANNEL_ID);
+        } else {
+            builder = new Notification.Builder(this);
+        }
+        PendingIntent open = PendingIntent.getActivity(this, 0, new Intent(this, MainActivity.class),
+                PendingIntent.FLAG_IMMUTABLE);
+        PendingIntent stop = PendingIntent.getService(this, 0,
+                new Intent(this, SurveyService.class).setAction(ACTION_STOP_SURVEY), PendingIntent.FLAG_IMMUTABLE);
+        return builder
+                .setSmallIcon(android.R.drawable.ic_menu_compass)
+                .setContentTitle("Survey running")
+                .setContentText("Scanning and logging in the background")
+                .setContentIntent(open)
+                .addAction(new Notification.Action.Builder((Icon) null, "Stop", stop).build())
+                .setOngoing(true)
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.howling.radar;
+
+import java.util.Arrays;
+
+// Merges scan batches into a stable BSSID-keyed target set.
+// Targets live in a dense array for iteration and a LongIntMap (mac -> index) for O(1) lookup;
+// a target missing from a scan is kept until maxAgeMillis so blips don't flicker between scans.
+public class TargetTracker {
+    public interface Listener {
+        void onTargetAdded(TrackedTarget target);
+        void onTargetUpdated(TrackedTarget target);
+        void onTargetRemoved(TrackedTarget target);
+    }
+
+    private final long maxAgeMillis;
+    private final LongIntMap indexByMac = new LongIntMap(256, -1);
+    private TrackedTarget[] targets = new TrackedTarget[256];
+    private int size;
+    private Listener listener;
+    private int rssiMode = RssiFilter.MODE_KALMAN;
+
+    private long scanTime;
+    private int scanSeq;
+    private int added;
+    private int updated;
+    private int removed;
+
+    public TargetTracker(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Applies to targets created after the call
+    public void setRssiMode(int mode) {
+        rssiMode = mode;
+    }
+
+    public void beginScan(long nowMillis) {
+        scanTime = nowMillis;
+        scanSeq++;
+        added = 0;
+        updated = 0;
+        removed = 0;
+    }
+
+    public TrackedTarget merge(ScanSample sample) {
+        if (sample.mac == MacAddress.INVALID) return null;
+
+        TrackedTarget target = find(sample.mac);
+        // Same BSSID twice in one batch: keep the stronger reading
+        if (target != null && target.lastScanSeq == scanSeq && sample.level <= target.level) {
+            return target;
+        }
+        boolean isNew = target == null;
+        if (isNew) {
+            target = new TrackedTarget(sample.mac, sample.bssid, rssiMode);
+            target.firstSeen = scanTime;
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            target.index = size;
+            targets[size++] = target;
+            indexByMac.put(sample.mac, target.index);
+        }
+
+        target.ssid = sample.ssid;
+        target.capabilities = sample.capabilities;
+        target.level = sample.level;
+        target.frequency = sample.frequency;
+        target.channelWidth = sample.channelWidth;
+        target.centerFreq0 = sample.centerFreq0;
+        target.centerFreq1 = sample.centerFreq1;
+        target.lastSeen = scanTime;
+        target.missedScans = 0;
+        boolean duplicate = !isNew && target.lastScanSeq == scanSeq;
+        target.lastScanSeq = scanSeq;
+        if (!duplicate) target.seenCount++;
+
+        if (isNew) {
+            added++;
+            if (listener != null) listener.onTargetAdded(target);
+        } else {
+            if (!duplicate) updated++;
+            if (listener != null) listener.onTargetUpdated(target);
+        }
+        return target;
+    }
+
+    // Feeds each target's RSSI filter once per scan (after duplicates have been resolved)
+    // and ages out everything not seen within maxAgeMillis of this scan
+    public void endScan() {
+        for (int i = size - 1; i >= 0; i--) {
+            TrackedTarget target = targets[i];
+            if (target.lastScanSeq == scanSeq) {
+                target.rssi.update(target.level, scanTime);
+                continue;
+            }
+            target.rssi.miss();
+            target.missedScans++;
+            if (scanTime - target.lastSeen > maxAgeMillis) {
+                removeAt(i);
+            }
+        }
+    }
+
+    private void removeAt(int i) {
+        TrackedTarget target = targets[i];
+        indexByMac.remove(target.mac);
+        TrackedTarget last = targets[--size];
+        targets[size] = null;
+        if (last != target) {
+            last.index = i;
+            targets[i] = last;
+            indexByMac.put(last.mac, i);
+        }
+        removed++;
+        if (listener != null) listener.onTargetRemoved(target);
+    }
+
+    public void clear() {
+        while (size > 0) removeAt(size - 1);
+    }
+
+    public TrackedTarget find(long mac) {
+        int i = indexByMac.get(mac);
+        return i >= 0 ? targets[i] : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TrackedTarget get(int i) {
+        return targets[i];
+    }
+
+    public long getScanTime() {
+        return scanTime;
+    }
+
+    public int getScanSeq() {
+        return scanSeq;
+    }
+
+    public int getAddedCount() {
+        return added;
+    }
+
+    public int getUpdatedCount() {
+        return updated;
+    }
+
+    public int getRemovedCount() {
+        return removed;
+    }
+}
@@ -0,0 +1,117 @@
+package com.howling.radar;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+
+// Replays a TraceRecorder trace in place of the hardware: a ScanSource for ScanIngestor plus
+// headings through the Listener. speed 1 is the recorded pace, 4 is four times faster, 0 is
+// as fast as the pipeline keeps up. Every scan is ingested, none coalesced: the player waits
+// for the ingestor to take each one before decoding the next, so an unpaced replay is limited
+// by the ingest thread rather than piling up batches. Times are the recorded ones, shifted
+// forward on each loop, so the tracker ages targets exactly as it did live.
+public class TracePlayer implements ScanSource {
+    public interface Listener {
+        // Player thread: a scan is ready, call ScanIngestor.requestIngest
+        void onScanReady();
+        // Player thread, at most at the recorded heading rate
+        void onHeading(float azimuth);
+        // Player thread, once; error is null when the trace simply ended. Not called after stop()
+        void onFinished(IOException error);
+    }
+
+    // Pause between the end of the trace and its next loop
+    private static final long LOOP_GAP_NANOS = 1_000_000_000L;
+
+    private final File traceFile;
+    private final float speed;
+    private final boolean loop;
+    private final Listener listener;
+
+    // One being decoded, one waiting in ready, one held by the ingestor between reads
+    private final ArrayBlockingQueue<ScanBatch> free = new ArrayBlockingQueue<>(3);
+    private final ArrayBlockingQueue<ScanBatch> ready = new ArrayBlockingQueue<>(1);
+    // Ingest thread
+    private ScanBatch handedOut;
+
+    private volatile Thread thread;
+    private volatile boolean stopped;
+
+    public TracePlayer(File traceFile, float speed, boolean loop, Listener listener) {
+        this.traceFile = traceFile;
+        this.speed = speed;
+        this.loop = loop;
+        this.listener = listener;
+        for (int i = 0; i < 3; i++) free.add(new ScanBatch());
+    }
+
+    public void start() {
+        Thread t = new Thread(this::play, "TracePlayer");
+        thread = t;
+        t.start();
+    }
+
+    public void stop() {
+        stopped = true;
+        Thread t = thread;
+        if (t != null) t.interrupt();
+    }
+
+    @Override
+    public ScanBatch read() {
+        if (handedOut != null) free.offer(handedOut);
+        handedOut = ready.poll();
+        return handedOut;
+    }
+
+    private void play() {
+        IOException error = null;
+        try {
+            long startNanos = System.nanoTime();
+            long offset = 0;
+            do {
+                offset = playOnce(startNanos, offset) + LOOP_GAP_NANOS;
+            } while (loop && !stopped);
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            // stop()
+        }
+        if (!stopped) listener.onFinished(error);
+    }
+
+    // One pass through the trace; returns the shifted time of its last record
+    private long playOnce(long startNanos, long offset) throws IOException, InterruptedException {
+        try (ScanTraceReader reader = new ScanTraceReader(new FileInputStream(traceFile))) {
+            long played = offset;
+            ScanBatch batch = null;
+            while (!stopped) {
+                if (batch == null) batch = free.take();
+                int type = reader.next(batch);
+                if (type == ScanTraceReader.END) break;
+                played = offset + reader.getTimeNanos() - reader.getStartElapsedNanos();
+                if (speed > 0) waitUntil(startNanos + (long) (played / speed));
+
+                if (type == ScanTraceReader.SCAN) {
+                    batch.elapsedNanos += offset;
+                    batch.wallTime += offset / 1_000_000;
+                    ready.put(batch);
+                    batch = null;
+                    listener.onScanReady();
+                } else {
+                    listener.onHeading(reader.getHeading());
+                }
+            }
+            if (batch != null) free.add(batch);
+            return played;
+        }
+    }
+
+    private static void waitUntil(long deadlineNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+        }
+    }
+}
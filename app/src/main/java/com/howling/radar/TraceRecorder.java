@@ -0,0 +1,123 @@
+package com.howling.radar;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+// Records a live session to a ScanTraceWriter trace for TracePlayer. Scans are written on the
+// ingest thread as they are read; headings arrive on the UI thread every frame, so they are only
+// buffered there (no I/O, no allocation) and written out ahead of the next scan. Only headings
+// stamped at or before the scan go ahead of it; later ones are held for the next drain, so the
+// trace stays in timestamp order and the writer never has to push a scan's time forward.
+public class TraceRecorder implements AutoCloseable {
+    // A few minutes of per-frame headings between scans; beyond that they're dropped
+    private static final int HEADING_BUFFER = 8192;
+
+    private final ScanTraceWriter writer;
+
+    private final Object lock = new Object();
+    // Filled by onHeading under lock, swapped with the spare pair on drain
+    private long[] headingTimes = new long[HEADING_BUFFER];
+    private float[] headings = new float[HEADING_BUFFER];
+    private int headingCount;
+    private long droppedHeadings;
+    // Drain side, ingest thread only
+    private long[] spareTimes = new long[HEADING_BUFFER];
+    private float[] spareHeadings = new float[HEADING_BUFFER];
+    // Drained but stamped after the scan they were drained for
+    private final long[] heldTimes = new long[HEADING_BUFFER];
+    private final float[] heldHeadings = new float[HEADING_BUFFER];
+    private int heldCount;
+
+    private TraceRecorder(ScanTraceWriter writer) {
+        this.writer = writer;
+    }
+
+    public static TraceRecorder open(File traceFile) throws IOException {
+        return new TraceRecorder(new ScanTraceWriter(new FileOutputStream(traceFile)));
+    }
+
+    // Any thread; elapsedNanos is SystemClock.elapsedRealtimeNanos()
+    public void onHeading(long elapsedNanos, float azimuth) {
+        synchronized (lock) {
+            if (headingCount == HEADING_BUFFER) {
+                droppedHeadings++;
+                return;
+            }
+            headingTimes[headingCount] = elapsedNanos;
+            headings[headingCount] = azimuth;
+            headingCount++;
+        }
+    }
+
+    // Ingest thread
+    public void onScan(ScanBatch batch) throws IOException {
+        writeHeadings(batch.elapsedNanos);
+        writer.writeScan(batch);
+    }
+
+    public long getDroppedHeadings() {
+        synchronized (lock) {
+            return droppedHeadings;
+        }
+    }
+
+    // Ingest thread
+    @Override
+    public void close() throws IOException {
+        try {
+            writeHeadings(Long.MAX_VALUE);
+        } finally {
+            writer.close();
+        }
+    }
+
+    // Held headings first, then the new ones; once one is past untilNanos it and everything after it is held
+    private void writeHeadings(long untilNanos) throws IOException {
+        long[] times;
+        float[] values;
+        int n;
+        synchronized (lock) {
+            times = headingTimes;
+            values = headings;
+            n = headingCount;
+            headingTimes = spareTimes;
+            headings = spareHeadings;
+            headingCount = 0;
+        }
+        spareTimes = times;
+        spareHeadings = values;
+
+        boolean holding = false;
+        int kept = 0;
+        for (int i = 0; i < heldCount; i++) {
+            if (!holding && heldTimes[i] <= untilNanos) {
+                writer.writeHeading(heldTimes[i], heldHeadings[i]);
+            } else {
+                holding = true;
+                heldTimes[kept] = heldTimes[i];
+                heldHeadings[kept] = heldHeadings[i];
+                kept++;
+            }
+        }
+        int dropped = 0;
+        for (int i = 0; i < n; i++) {
+            if (!holding && times[i] <= untilNanos) {
+                writer.writeHeading(times[i], values[i]);
+            } else if (kept < HEADING_BUFFER) {
+                holding = true;
+                heldTimes[kept] = times[i];
+                heldHeadings[kept] = values[i];
+                kept++;
+            } else {
+                dropped++;
+            }
+        }
+        heldCount = kept;
+        if (dropped > 0) {
+            synchronized (lock) {
+                droppedHeadings += dropped;
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.howling.radar;
+
+// A BSSID the radar has seen, kept alive across scans by TargetTracker
+public class TrackedTarget {
+    public final long mac;
+    public final String bssid;
+    public String ssid;
+    public String capabilities;
+    public int level;
+    public int frequency;
+    public int channelWidth;
+    public int centerFreq0;
+    public int centerFreq1;
+
+    public long firstSeen;
+    public long lastSeen;
+    public int seenCount;
+    // Consecutive scans this target was missing from
+    public int missedScans;
+    // Smoothed RSSI across scans; level above stays the raw latest reading
+    public final RssiFilter rssi;
+
+    // Sweep ping already played on this pass
+    boolean pinged;
+    // Position in TargetTracker's dense array
+    int index;
+    // TargetTracker scan sequence this target was last merged in
+    int lastScanSeq;
+    // What ChannelAggregator last added for this target, so it can be removed exactly
+    boolean counted;
+    int countedFrequency;
+    int countedWidth;
+    int countedCenterFreq0;
+    int countedCenterFreq1;
+    int countedLevel;
+
+    TrackedTarget(long mac, String bssid, int rssiMode) {
+        this.mac = mac;
+        this.bssid = bssid;
+        this.rssi = new RssiFilter(rssiMode);
+    }
+}
@@ -0,0 +1,105 @@
+package com.howling.radar;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// MAC -> vendor name over the installed OuiIndex, with no Android dependencies so the scan
+// pipeline and the JVM benchmarks can use it directly. MacVendorHelper loads the index from the
+// APK assets and installs it here; until then lookups answer "Loading...".
+public class VendorLookup {
+    public interface MissListener {
+        // Rate limited: called when the missing OUI changes or every few seconds
+        void onMiss(int oui, long totalMisses);
+    }
+
+    private static final String LOADING = "Loading...";
+    private static final String UNAVAILABLE = "DB Error";
+    private static final String RANDOMIZED = "Randomized (Local)";
+    private static final String MULTICAST = "Multicast";
+    private static final String UNKNOWN = "Unknown";
+
+    private static volatile OuiIndex ouiIndex;
+    private static volatile boolean failed;
+    private static volatile MissListener missListener;
+
+    private static final long MISS_LOG_INTERVAL_NANOS = 5_000_000_000L;
+    private static final AtomicLong missCount = new AtomicLong();
+    private static volatile int lastMissOui = -1;
+    private static volatile long lastMissLogNanos;
+
+    public static void install(OuiIndex index) {
+        ouiIndex = index;
+        failed = false;
+    }
+
+    // Load failed; lookups answer "DB Error" instead of "Loading..."
+    public static void fail() {
+        failed = true;
+    }
+
+    public static void setMissListener(MissListener listener) {
+        missListener = listener;
+    }
+
+    public static boolean isLoaded() {
+        return ouiIndex != null;
+    }
+
+    public static int getEntryCount() {
+        OuiIndex db = ouiIndex;
+        return db != null ? db.size() : 0;
+    }
+
+    public static String getVendor(String bssid) {
+        // BSSID: "CC:29:BD:66:D3:7E" -> 0xCC29BD66D37EL (no replace/substring garbage)
+        long mac = MacAddress.parse(bssid);
+        if (mac == MacAddress.INVALID) return UNKNOWN;
+        return getVendor(mac);
+    }
+
+    // Longest-prefix match across MA-S / MA-M / MA-L
+    public static String getVendor(long mac) {
+        // Locally administered addresses are never in the IEEE registry, no lookup needed
+        if (MacAddress.isMulticast(mac)) return MULTICAST;
+        if (MacAddress.isLocallyAdministered(mac)) return RANDOMIZED;
+
+        OuiIndex db = ouiIndex;
+        if (db == null) return failed ? UNAVAILABLE : LOADING;
+
+        int vendorId = db.find(mac);
+        if (vendorId >= 0) {
+            return db.vendorName(vendorId);
+        }
+        onMiss(MacAddress.oui(mac));
+        return UNKNOWN;
+    }
+
+    // MA-L block only; use getVendor(long) when the full address is known
+    public static String getVendorByOui(int oui) {
+        OuiIndex db = ouiIndex;
+        if (db == null) return failed ? UNAVAILABLE : LOADING;
+
+        int vendorId = db.findOui(oui);
+        if (vendorId >= 0) {
+            return db.vendorName(vendorId);
+        }
+        onMiss(oui);
+        return UNKNOWN;
+    }
+
+    public static long getMissCount() {
+        return missCount.get();
+    }
+
+    // Misses are counted and only reported on change or every few seconds
+    private static void onMiss(int oui) {
+        long misses = missCount.incrementAndGet();
+        MissListener l = missListener;
+        if (l == null) return;
+        long now = System.nanoTime();
+        if (oui != lastMissOui || now - lastMissLogNanos > MISS_LOG_INTERVAL_NANOS) {
+            lastMissOui = oui;
+            lastMissLogNanos = now;
+            l.onMiss(oui, misses);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.howling.radar;
+
+// Frequency -> band/channel and channel width -> occupied spectrum, table driven.
+// Everything here is computed once per target at ingest; the renderer only reads the results.
+public class WifiChannel {
+    public static final int BAND_UNKNOWN = 0;
+    public static final int BAND_24_GHZ = 1;
+    public static final int BAND_5_GHZ = 2;
+    public static final int BAND_6_GHZ = 3;
+
+    // ScanResult.CHANNEL_WIDTH_* codes
+    public static final int WIDTH_20 = 0;
+    public static final int WIDTH_40 = 1;
+    public static final int WIDTH_80 = 2;
+    public static final int WIDTH_160 = 3;
+    public static final int WIDTH_80_PLUS_80 = 4;
+    public static final int WIDTH_320 = 5;
+
+    private static final String[] BAND_NAMES = {"?", "2.4 GHz", "5 GHz", "6 GHz"};
+    private static final int[] WIDTH_MHZ = {20, 40, 80, 160, 160, 320};
+    private static final String[] WIDTH_LABELS = {"20 MHz", "40 MHz", "80 MHz", "160 MHz", "80+80 MHz", "320 MHz"};
+
+    // {first MHz, last MHz, channel 0 MHz, band}; channel = (freq - base) / 5
+    private static final int[][] RANGES = {
+            {2412, 2472, 2407, BAND_24_GHZ},
+            {4910, 4980, 4000, BAND_5_GHZ},  // Japan 4.9 GHz, channels 182-196
+            {5035, 5895, 5000, BAND_5_GHZ},
+            {5955, 7115, 5950, BAND_6_GHZ},
+    };
+
+    // Highest channel number per band, for sizing per-channel tables
+    public static final int[] MAX_CHANNEL = {0, 14, 196, 233};
+
+    public static int band(int freq) {
+        if (freq == 2484) return BAND_24_GHZ;
+        if (freq == 5935) return BAND_6_GHZ;
+        for (int[] r : RANGES) {
+            if (freq >= r[0] && freq <= r[1]) return r[3];
+        }
+        return BAND_UNKNOWN;
+    }
+
+    // 0 when the frequency isn't a Wi-Fi channel
+    public static int channel(int freq) {
+        if (freq == 2484) return 14;
+        if (freq == 5935) return 2; // 6 GHz channel 2 sits below the regular grid
+        for (int[] r : RANGES) {
+            if (freq >= r[0] && freq <= r[1]) return (freq - r[2]) / 5;
+        }
+        return 0;
+    }
+
+    // Center frequency of a channel number; inverse of channel()
+    public static int frequency(int band, int channel) {
+        switch (band) {
+            case BAND_24_GHZ:
+                return channel == 14 ? 2484 : 2407 + channel * 5;
+            case BAND_5_GHZ:
+                return channel >= 182 ? 4000 + channel * 5 : 5000 + channel * 5;
+            case BAND_6_GHZ:
+                return channel == 2 ? 5935 : 5950 + channel * 5;
+            default:
+                return 0;
+        }
+    }
+
+    public static String bandName(int band) {
+        return BAND_NAMES[band];
+    }
+
+    public static int widthMhz(int widthCode) {
+        return widthCode >= 0 && widthCode < WIDTH_MHZ.length ? WIDTH_MHZ[widthCode] : 20;
+    }
+
+    public static String widthLabel(int widthCode) {
+        return widthCode >= 0 && widthCode < WIDTH_LABELS.length ? WIDTH_LABELS[widthCode] : WIDTH_LABELS[0];
+    }
+
+    // Center of the (first) occupied segment; centerFreq0 is 0 on 20 MHz and older drivers
+    public static int centerFreq(int freq, int widthCode, int centerFreq0) {
+        return widthCode != WIDTH_20 && centerFreq0 > 0 ? centerFreq0 : freq;
+    }
+
+    // Second 80 MHz segment of an 80+80 channel, else 0
+    public static int secondCenterFreq(int widthCode, int centerFreq1) {
+        return widthCode == WIDTH_80_PLUS_80 ? centerFreq1 : 0;
+    }
+
+    // Segment width: 80+80 is two 80 MHz segments
+    public static int segmentWidthMhz(int widthCode) {
+        return widthCode == WIDTH_80_PLUS_80 ? 80 : widthMhz(widthCode);
+    }
+}
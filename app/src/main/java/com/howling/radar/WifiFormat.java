@@ -0,0 +1,16 @@
+package com.howling.radar;
+
+import java.util.Locale;
+
+// Display values derived from raw scan fields, shared by ingestion and the popup
+public class WifiFormat {
+    // Meters from PathLoss
+    public static String distance(float meters) {
+        return String.format(Locale.US, "%.1f", meters);
+    }
+
+    // Radar label name: "HIDDEN" or at most 12 chars
+    public static String shortName(String ssid) {
+        return ssid.isEmpty() ? "HIDDEN" : (ssid.length() > 12 ? ssid.substring(0, 12) + "..." : ssid);
+    }
+}
@@ -0,0 +1,53 @@
+package com.howling.radar;
+
+import android.annotation.SuppressLint;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.os.SystemClock;
+import android.os.Trace;
+import java.util.List;
+
+// Live scans: WifiManager.getScanResults() copied into a reused batch. Entries without a
+// parseable BSSID are dropped here, so nothing downstream has to check.
+public class WifiScanSource implements ScanSource {
+    private final WifiManager wifiManager;
+    private final ScanBatch batch = new ScanBatch();
+
+    public WifiScanSource(WifiManager wifiManager) {
+        this.wifiManager = wifiManager;
+    }
+
+    @Override
+    @SuppressLint("MissingPermission")
+    public ScanBatch read() {
+        Trace.beginSection("ScanIngestor.getScanResults");
+        List<ScanResult> results;
+        try {
+            results = wifiManager.getScanResults();
+        } finally {
+            Trace.endSection();
+        }
+        if (results == null) return null;
+
+        batch.clear();
+        batch.elapsedNanos = SystemClock.elapsedRealtimeNanos();
+        batch.wallTime = System.currentTimeMillis();
+        for (int i = 0; i < results.size(); i++) {
+            ScanResult res = results.get(i);
+            long mac = MacAddress.parse(res.BSSID);
+            if (mac == MacAddress.INVALID) continue;
+
+            ScanSample sample = batch.add();
+            sample.mac = mac;
+            sample.bssid = res.BSSID;
+            sample.ssid = res.SSID != null ? res.SSID : "";
+            sample.capabilities = res.capabilities != null ? res.capabilities : "";
+            sample.level = res.level;
+            sample.frequency = res.frequency;
+            sample.channelWidth = res.channelWidth;
+            sample.centerFreq0 = res.centerFreq0;
+            sample.centerFreq1 = res.centerFreq1;
+        }
+        return batch;
+    }
+}
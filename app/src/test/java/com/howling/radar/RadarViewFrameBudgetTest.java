@@ -0,0 +1,396 @@
+package com.howling.radar;
+
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.RenderNode;
+import android.os.Trace;
+import android.view.MotionEvent;
+import android.view.View;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.util.ReflectionHelpers;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
+
+// Per-frame budget for the real RadarView.onDraw: synthetic scans of each size go in through
+// updateBlips(), frames are driven through the view's own frame callback and drawn into a Canvas
+// that counts draw calls, and measured frames must stay at zero bytes allocated on this thread
+// and under the draw-op budget. The first frames after each snapshot are left out: they
+// rebuild the render model and label layout, which is per-scan work, not per-frame.
+// Frame time is printed for reference only; a JVM's timing says little about a phone's.
+// Sizes and budgets can be overridden with -DframeBudget.targets=50,200,500, .frames, .maxRadarOps,
+// .maxChartOps and .maxAllocatingFrames.
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class RadarViewFrameBudgetTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 2200;
+    private static final int[] TARGET_COUNTS = intsProperty("frameBudget.targets", 50, 200, 500);
+    private static final int SCANS = 4;
+    private static final int FRAMES = Integer.getInteger("frameBudget.frames", 300);
+    // Once for the JIT, then after every snapshot for one-time growth of the per-slot arrays
+    private static final int WARMUP_FRAMES = 500;
+    private static final int SETTLE_FRAMES = 60;
+    private static final long FRAME_NANOS = 16_666_667L;
+
+    // JIT recompilation, Robolectric's shadow call sites included, allocates on the drawing thread
+    // on a few frames a run (none under -Xint); an allocation in the view shows up on every frame
+    private static final int MAX_ALLOCATING_FRAMES =
+            Integer.getInteger("frameBudget.maxAllocatingFrames", SCANS * FRAMES / 100);
+    private static final int MAX_RADAR_OPS = Integer.getInteger("frameBudget.maxRadarOps", 300);
+    private static final int MAX_CHART_OPS = Integer.getInteger("frameBudget.maxChartOps", 400);
+
+    private static final String[] CAPABILITIES = {
+            "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]",
+            "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS][WPS]",
+            "[RSN-PSK+SAE-CCMP][ESS][MFPC]",
+            "[RSN-EAP-CCMP][ESS]",
+            "[WEP][ESS]",
+            "[ESS]",
+    };
+    private static final int[] FREQUENCIES = {2412, 2437, 2462, 2417, 2442, 5180, 5220, 5500, 5745, 5785, 5955, 6115};
+    private static final int[] WIDTHS = {
+            WifiChannel.WIDTH_20, WifiChannel.WIDTH_20, WifiChannel.WIDTH_20, WifiChannel.WIDTH_20, WifiChannel.WIDTH_20,
+            WifiChannel.WIDTH_80, WifiChannel.WIDTH_80, WifiChannel.WIDTH_40, WifiChannel.WIDTH_160, WifiChannel.WIDTH_80,
+            WifiChannel.WIDTH_160, WifiChannel.WIDTH_320,
+    };
+
+    private final com.sun.management.ThreadMXBean threads = allocationCounter();
+
+    // The view's Trace sections would land in ShadowTrace, which keeps every ended section in a
+    // growing per-thread queue; with app tracing off it returns before recording anything
+    @Before
+    public void disableTracing() {
+        setAppTracingAllowed(false);
+    }
+
+    @After
+    public void enableTracing() {
+        setAppTracingAllowed(true);
+    }
+
+    private static void setAppTracingAllowed(boolean allowed) {
+        ReflectionHelpers.callStaticMethod(Trace.class, "setAppTracingAllowed",
+                ClassParameter.from(boolean.class, allowed));
+    }
+
+    @Test
+    public void radarFramesStayInBudget() {
+        for (int targets : TARGET_COUNTS) {
+            assertBudget(run(targets, RadarView.MODE_RADAR, false), MAX_RADAR_OPS);
+        }
+    }
+
+    @Test
+    public void radarFramesWithPopupStayInBudget() {
+        for (int targets : TARGET_COUNTS) {
+            assertBudget(run(targets, RadarView.MODE_RADAR, true), MAX_RADAR_OPS);
+        }
+    }
+
+    @Test
+    public void channelChartFramesStayInBudget() {
+        for (int targets : TARGET_COUNTS) {
+            assertBudget(run(targets, RadarView.MODE_CHANNELS, false), MAX_CHART_OPS);
+        }
+    }
+
+    private Result run(int targets, int mode, boolean popup) {
+        RadarView view = new RadarView(RuntimeEnvironment.getApplication(), null);
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        view.setMode(mode);
+        boolean[] popupOpen = new boolean[1];
+        view.setPopupListener(open -> popupOpen[0] = open);
+
+        ScanSample[] samples = samples(targets, targets);
+        Random jitter = new Random(targets + 1);
+        TargetTracker tracker = new TargetTracker(30_000);
+        ChannelAggregator channels = new ChannelAggregator();
+        tracker.setListener(channels);
+
+        CountingCanvas canvas = new CountingCanvas();
+        Result result = new Result(targets, mode, popup);
+        long threadId = Thread.currentThread().getId();
+        long frameTime = 0;
+        float azimuth = 0;
+
+        for (int scan = 0; scan < SCANS; scan++) {
+            tracker.beginScan(10_000L * (scan + 1));
+            for (ScanSample s : samples) {
+                s.level += jitter.nextInt(7) - 3;
+                tracker.merge(s);
+            }
+            tracker.endScan();
+            view.updateBlips(ScanSnapshot.capture(tracker, channels, 0, 0));
+
+            int warmup = scan == 0 ? WARMUP_FRAMES : SETTLE_FRAMES;
+            for (int f = 0; f < warmup + FRAMES; f++) {
+                frameTime += FRAME_NANOS;
+                azimuth = (azimuth + 0.4f) % 360;
+                view.setAzimuth(azimuth);
+                view.onFrame(frameTime);
+                // The hit grid is filled by the first frame of each snapshot
+                if (popup && !popupOpen[0] && f == 1) selectAnyTarget(view, popupOpen);
+
+                canvas.ops = 0;
+                long allocBefore = threads != null ? threads.getThreadAllocatedBytes(threadId) : 0;
+                long start = System.nanoTime();
+                view.onDraw(canvas);
+                long nanos = System.nanoTime() - start;
+                long alloc = threads != null ? threads.getThreadAllocatedBytes(threadId) - allocBefore : 0;
+                if (f >= warmup) result.add(alloc, canvas.ops, nanos);
+            }
+        }
+        if (popup) assertTrue("no target could be selected for the popup", popupOpen[0]);
+        System.out.println(result);
+        return result;
+    }
+
+    private void assertBudget(Result result, int maxOps) {
+        if (threads != null) {
+            assertTrue("allocates per frame: " + result, result.allocatingFrames <= MAX_ALLOCATING_FRAMES);
+        }
+        assertTrue("too many draw ops per frame: " + result, result.worstOps <= maxOps);
+    }
+
+    // Taps across the dial until one lands on a blip; clear of the mode/survey/debug corners
+    private static void selectAnyTarget(RadarView view, boolean[] popupOpen) {
+        for (int y = HEIGHT / 2 - 400; y <= HEIGHT / 2 + 400 && !popupOpen[0]; y += 20) {
+            for (int x = 140; x <= WIDTH - 140 && !popupOpen[0]; x += 20) {
+                MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, y, 0);
+                view.onTouchEvent(down);
+                down.recycle();
+            }
+        }
+    }
+
+    // n APs with their first-scan level: mostly 2.4 GHz 20 MHz and 5 GHz 80 MHz, some 6 GHz
+    private static ScanSample[] samples(int n, long seed) {
+        Random random = new Random(seed);
+        ScanSample[] out = new ScanSample[n];
+        for (int i = 0; i < n; i++) {
+            ScanSample s = new ScanSample();
+            s.mac = ((long) (random.nextInt(0x1000000) & 0xFCFFFF) << 24) | random.nextInt(0x1000000);
+            s.bssid = MacAddress.format(s.mac);
+            s.ssid = "net-" + Integer.toHexString(random.nextInt(0x10000));
+            s.capabilities = CAPABILITIES[random.nextInt(CAPABILITIES.length)];
+            s.level = -35 - random.nextInt(60);
+            int f = random.nextInt(FREQUENCIES.length);
+            s.frequency = FREQUENCIES[f];
+            s.channelWidth = WIDTHS[f];
+            s.centerFreq0 = s.channelWidth == WifiChannel.WIDTH_20 ? 0 : s.frequency + 10;
+            out[i] = s;
+        }
+        return out;
+    }
+
+    private static int[] intsProperty(String name, int... defaults) {
+        String value = System.getProperty(name);
+        if (value == null || value.trim().isEmpty()) return defaults;
+        String[] parts = value.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) result[i] = Integer.parseInt(parts[i].trim());
+        return result;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return threads;
+                }
+            }
+        } catch (LinkageError ignored) {
+            // Not HotSpot
+        }
+        System.out.println("frame budget: per-thread allocation counter unavailable, allocation budget skipped");
+        return null;
+    }
+
+    private static final class Result {
+        final int targets;
+        final int mode;
+        final boolean popup;
+        final LatencyHistogram frameTime = new LatencyHistogram();
+        long frames;
+        long totalAlloc;
+        long worstAlloc;
+        int allocatingFrames;
+        int worstOps;
+
+        Result(int targets, int mode, boolean popup) {
+            this.targets = targets;
+            this.mode = mode;
+            this.popup = popup;
+        }
+
+        void add(long alloc, int ops, long nanos) {
+            frames++;
+            totalAlloc += alloc;
+            worstAlloc = Math.max(worstAlloc, alloc);
+            if (alloc > 0) allocatingFrames++;
+            worstOps = Math.max(worstOps, ops);
+            frameTime.record(nanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s%s targets=%d frames=%d alloc/frame avg=%.1fB max=%dB (%d frames) ops/frame max=%d"
+                            + " time/frame mean=%.1fus p99=%.1fus (advisory)",
+                    mode == RadarView.MODE_RADAR ? "radar" : "channels", popup ? "+popup" : "", targets, frames,
+                    (double) totalAlloc / frames, worstAlloc, allocatingFrames, worstOps,
+                    frameTime.getMean() / 1000.0, frameTime.valueAtPercentile(99) / 1000.0);
+        }
+    }
+
+    // Counts draw calls instead of drawing them; transforms and save/restore go to the real Canvas
+    private static final class CountingCanvas extends Canvas {
+        int ops;
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawRect(RectF rect, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawRect(Rect r, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawOval(RectF oval, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawLines(float[] pts, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawLines(float[] pts, int offset, int count, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawPoint(float x, float y, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawPath(Path path, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawPaint(Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawColor(int color) {
+            ops++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+            ops++;
+        }
+
+        @Override
+        public void drawPicture(Picture picture) {
+            ops++;
+        }
+
+        @Override
+        public void drawRenderNode(RenderNode renderNode) {
+            ops++;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.howling.radar.bench;
+
+import com.howling.radar.Capabilities;
+import com.howling.radar.LiveChannelOccupancy;
+import com.howling.radar.ScanSample;
+import com.howling.radar.WifiChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Per-AP decoding done at ingest: capability strings (parse vs. the LRU-cached lookup),
+// frequency -> band/channel, and one AP's add/remove on the channel occupancy aggregate.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DecodeBenchmark {
+    private final String[] capabilities = Synthetic.CAPABILITIES.clone();
+    private ScanSample[] samples;
+    private LiveChannelOccupancy occupancy;
+    private int next;
+
+    @Setup
+    public void setup() {
+        // Fresh copies so Capabilities.of can't short-circuit on String identity
+        for (int i = 0; i < capabilities.length; i++) capabilities[i] = new String(capabilities[i]);
+        samples = Synthetic.samples(256, 3);
+        occupancy = new LiveChannelOccupancy();
+    }
+
+    @Benchmark
+    public int capabilitiesParse() {
+        return Capabilities.parse(capabilities[next++ % capabilities.length]);
+    }
+
+    @Benchmark
+    public Capabilities capabilitiesCached() {
+        return Capabilities.of(capabilities[next++ % capabilities.length]);
+    }
+
+    @Benchmark
+    public int bandAndChannel() {
+        int freq = Synthetic.FREQUENCIES[next++ % Synthetic.FREQUENCIES.length];
+        return WifiChannel.band(freq) * 256 + WifiChannel.channel(freq);
+    }
+
+    @Benchmark
+    public int occupancyAddRemove() {
+        ScanSample s = samples[next++ & 255];
+        occupancy.add(s.frequency, s.channelWidth, s.centerFreq0, s.centerFreq1, s.level);
+        occupancy.remove(s.frequency, s.channelWidth, s.centerFreq0, s.centerFreq1, s.level);
+        return occupancy.covering(1, 6);
+    }
+}
@@ -0,0 +1,94 @@
+package com.howling.radar.bench;
+
+import com.howling.radar.ChannelAggregator;
+import com.howling.radar.HitGrid;
+import com.howling.radar.LabelPlanner;
+import com.howling.radar.RenderModel;
+import com.howling.radar.ScanSample;
+import com.howling.radar.ScanSnapshot;
+import com.howling.radar.TargetTracker;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// RadarView's math without the Canvas:
+//   frame()     per frame: sweep fade, label selection and placement, screen projection into HitGrid
+//   snapshot()  per scan: RenderModel rebuild plus LabelPlanner clustering
+// Sizes match a ~1080 px wide phone in portrait.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameBenchmark {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 2200;
+    private static final float RADIUS = WIDTH / 2f - 140;
+    // 6 s sweep at 60 fps
+    private static final float SWEEP_STEP = 1f;
+    // Rough width of the 24 px bold label font; the app measures with Paint
+    private static final float CHAR_WIDTH = 13f;
+
+    @Param({"50", "200", "500"})
+    public int targets;
+
+    private ScanSnapshot snapshot;
+    private final RenderModel model = new RenderModel();
+    private final LabelPlanner planner = new LabelPlanner();
+    private final HitGrid hitGrid = new HitGrid(60);
+    private float sweepAngle;
+    private float azimuth;
+
+    @Setup
+    public void setup() {
+        ScanSample[] samples = Synthetic.samples(targets, 5);
+        TargetTracker tracker = new TargetTracker(30_000);
+        ChannelAggregator channels = new ChannelAggregator();
+        tracker.setListener(channels);
+        tracker.beginScan(10_000);
+        for (ScanSample s : samples) tracker.merge(s);
+        tracker.endScan();
+        snapshot = ScanSnapshot.capture(tracker, channels, 10_000, 0);
+        layout();
+    }
+
+    private void layout() {
+        model.rebuild(snapshot);
+        planner.layout(model, RADIUS);
+        for (int i = 0; i < model.count; i++) {
+            planner.labelWidth[i] = Math.max(model.label[i].length(), model.secLabel[i].length()) * CHAR_WIDTH;
+        }
+    }
+
+    @Benchmark
+    public int frame() {
+        sweepAngle = (sweepAngle + SWEEP_STEP) % 360;
+        azimuth = (azimuth + 0.25f) % 360;
+        model.updateSweep(azimuth, sweepAngle, planner.alpha);
+        planner.plan(-1);
+
+        float azRad = (float) Math.toRadians(azimuth);
+        float azCos = (float) Math.cos(azRad);
+        float azSin = (float) Math.sin(azRad);
+        float cx = WIDTH / 2f;
+        float cy = HEIGHT / 2f;
+        hitGrid.reset(WIDTH, HEIGHT);
+        for (int i = 0; i < model.count; i++) {
+            if (planner.leader[i] != i || planner.alpha[i] <= 15) continue;
+            float x = cx + planner.x[i] * azCos + planner.y[i] * azSin;
+            float y = cy + planner.y[i] * azCos - planner.x[i] * azSin;
+            hitGrid.add(i, x, y, Math.round(snapshot.smoothedLevel[i]));
+        }
+        return planner.getShownCount();
+    }
+
+    @Benchmark
+    public int snapshot() {
+        layout();
+        return planner.count;
+    }
+}
@@ -0,0 +1,75 @@
+package com.howling.radar.bench;
+
+import com.howling.radar.ChannelAggregator;
+import com.howling.radar.LabelPlanner;
+import com.howling.radar.RenderModel;
+import com.howling.radar.ScanBatch;
+import com.howling.radar.ScanSnapshot;
+import com.howling.radar.ScanTraceReader;
+import com.howling.radar.TargetTracker;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// A whole recorded session, unpaced, through everything between the trace and the canvas:
+// decode, merge, aggregate, capture, RenderModel rebuild and label layout per scan. Replays
+// -Dreplay.trace=<file> when given (e.g. a trace recorded on a device), else a synthetic
+// 500 AP stadium trace. Reports time per session; divide by the scan count for per-scan cost.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReplayBenchmark {
+    private static final float RADIUS = 400;
+
+    private byte[] trace;
+    private final ScanBatch batch = new ScanBatch();
+    private final RenderModel model = new RenderModel();
+    private final LabelPlanner planner = new LabelPlanner();
+
+    @Setup
+    public void setup() throws IOException {
+        String path = System.getProperty("replay.trace");
+        if (path != null) {
+            trace = Files.readAllBytes(Paths.get(path));
+        } else {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            StadiumTrace.write(out, 500, 60, 500);
+            trace = out.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public int replay() throws IOException {
+        // Fresh pipeline state: trace times restart at the beginning every invocation
+        TargetTracker tracker = new TargetTracker(30_000);
+        ChannelAggregator channels = new ChannelAggregator();
+        tracker.setListener(channels);
+        int headings = 0;
+        try (ScanTraceReader reader = new ScanTraceReader(new ByteArrayInputStream(trace))) {
+            int type;
+            while ((type = reader.next(batch)) != ScanTraceReader.END) {
+                if (type == ScanTraceReader.HEADING) {
+                    headings++;
+                    continue;
+                }
+                tracker.beginScan(batch.elapsedNanos / 1_000_000);
+                for (int i = 0; i < batch.count; i++) tracker.merge(batch.samples[i]);
+                tracker.endScan();
+                ScanSnapshot snapshot = ScanSnapshot.capture(tracker, channels, batch.wallTime, 0);
+                model.rebuild(snapshot);
+                planner.layout(model, RADIUS);
+            }
+        }
+        return headings + model.count;
+    }
+}
@@ -0,0 +1,69 @@
+package com.howling.radar.bench;
+
+import com.howling.radar.ChannelAggregator;
+import com.howling.radar.ScanSample;
+import com.howling.radar.ScanSnapshot;
+import com.howling.radar.TargetTracker;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// One scan batch through the ingest thread's path: TargetTracker merge with the incremental
+// ChannelAggregator listening, endScan (RSSI filters, aging), and the ScanSnapshot capture.
+// Steady state: the same APs every scan with jittered levels, as in a stationary survey.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScanMergeBenchmark {
+    private static final int SCANS = 16;
+
+    @Param({"50", "500", "5000"})
+    public int aps;
+
+    private ScanSample[] samples;
+    private int[][] levels;
+    private TargetTracker tracker;
+    private ChannelAggregator channels;
+    private long now;
+    private int scan;
+
+    @Setup
+    public void setup() {
+        samples = Synthetic.samples(aps, 7);
+        levels = Synthetic.levelJitter(samples, SCANS, 11);
+        tracker = new TargetTracker(30_000);
+        channels = new ChannelAggregator();
+        tracker.setListener(channels);
+        // First scan adds everything; the benchmarks measure later scans
+        mergeScan();
+    }
+
+    private void mergeScan() {
+        int[] level = levels[scan++ % SCANS];
+        now += 10_000;
+        tracker.beginScan(now);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i].level = level[i];
+            tracker.merge(samples[i]);
+        }
+        tracker.endScan();
+    }
+
+    @Benchmark
+    public int merge() {
+        mergeScan();
+        return tracker.size();
+    }
+
+    @Benchmark
+    public ScanSnapshot mergeAndCapture() {
+        mergeScan();
+        return ScanSnapshot.capture(tracker, channels, now, 0);
+    }
+}
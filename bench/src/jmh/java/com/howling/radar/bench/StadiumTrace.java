@@ -0,0 +1,77 @@
+package com.howling.radar.bench;
+
+import com.howling.radar.ScanBatch;
+import com.howling.radar.ScanSample;
+import com.howling.radar.ScanTraceWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+// Writes a synthetic stadium session as a replayable trace: a fixed venue network plus phone
+// hotspots that come and go, a scan every SCAN_INTERVAL and a slowly panning heading every frame.
+//   ./gradlew :bench:stadiumTrace             build/traces/stadium-500.trace
+// Push it to the device and start MainActivity with --es replay <path> (see MainActivity).
+public final class StadiumTrace {
+    private static final long SCAN_INTERVAL_NANOS = 5_000_000_000L;
+    private static final long FRAME_NANOS = 16_666_667L;
+    // Share of APs that are hotspots, each present in a given scan with HOTSPOT_PRESENCE
+    private static final float HOTSPOT_SHARE = 0.3f;
+    private static final float HOTSPOT_PRESENCE = 0.6f;
+    // Somewhere in 2025, so exported wall times look sane
+    private static final long START_WALL_MILLIS = 1_750_000_000_000L;
+
+    private StadiumTrace() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: StadiumTrace <out.trace> [aps=500] [scans=120]");
+            System.exit(2);
+        }
+        int aps = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int scans = args.length > 2 ? Integer.parseInt(args[2]) : 120;
+        try (OutputStream out = new FileOutputStream(args[0])) {
+            write(out, aps, scans, 500);
+        }
+        System.out.println("wrote " + args[0] + ": " + aps + " APs, " + scans + " scans");
+    }
+
+    static void write(OutputStream out, int aps, int scans, long seed) throws IOException {
+        ScanSample[] samples = Synthetic.samples(aps, seed);
+        int[][] levels = Synthetic.levelJitter(samples, scans, seed + 1);
+        int hotspots = (int) (aps * HOTSPOT_SHARE);
+        Random random = new Random(seed + 2);
+        ScanBatch batch = new ScanBatch();
+        ScanTraceWriter writer = new ScanTraceWriter(out);
+
+        long elapsed = SCAN_INTERVAL_NANOS;
+        float azimuth = 0;
+        for (int scan = 0; scan < scans; scan++) {
+            batch.clear();
+            batch.elapsedNanos = elapsed;
+            batch.wallTime = START_WALL_MILLIS + elapsed / 1_000_000;
+            for (int i = 0; i < aps; i++) {
+                if (i < hotspots && random.nextFloat() > HOTSPOT_PRESENCE) continue;
+                ScanSample s = batch.add();
+                ScanSample from = samples[i];
+                s.mac = from.mac;
+                s.bssid = from.bssid;
+                s.ssid = from.ssid;
+                s.capabilities = from.capabilities;
+                s.level = levels[scan][i];
+                s.frequency = from.frequency;
+                s.channelWidth = from.channelWidth;
+                s.centerFreq0 = from.centerFreq0;
+                s.centerFreq1 = from.centerFreq1;
+            }
+            writer.writeScan(batch);
+
+            for (long t = FRAME_NANOS; t < SCAN_INTERVAL_NANOS; t += FRAME_NANOS) {
+                azimuth = (azimuth + 0.3f) % 360;
+                writer.writeHeading(elapsed + t, azimuth);
+            }
+            elapsed += SCAN_INTERVAL_NANOS;
+        }
+        writer.flush();
+    }
+}
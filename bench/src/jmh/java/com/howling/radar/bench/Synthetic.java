@@ -0,0 +1,64 @@
+package com.howling.radar.bench;
+
+import com.howling.radar.MacAddress;
+import com.howling.radar.ScanSample;
+import com.howling.radar.WifiChannel;
+import java.util.Random;
+
+// Deterministic fake scan batches shaped like a dense office/apartment survey:
+// mostly 2.4 GHz 20 MHz and 5 GHz 80 MHz, some 6 GHz, a spread of security setups.
+final class Synthetic {
+    static final String[] CAPABILITIES = {
+            "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]",
+            "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS][WPS]",
+            "[WPA-PSK-TKIP+CCMP][WPA2-PSK-TKIP+CCMP][ESS]",
+            "[RSN-PSK+SAE-CCMP][ESS][MFPC]",
+            "[RSN-SAE-CCMP][ESS][MFPR][MFPC]",
+            "[RSN-EAP-CCMP][ESS]",
+            "[RSN-OWE-CCMP][ESS][MFPR]",
+            "[WEP][ESS]",
+            "[ESS]",
+            "[WPA2-EAP-SUITE_B_192-GCMP-256][ESS]",
+    };
+    static final int[] FREQUENCIES = {2412, 2437, 2462, 2417, 2442, 5180, 5220, 5500, 5745, 5785, 5955, 6115};
+    static final int[] WIDTHS = {
+            WifiChannel.WIDTH_20, WifiChannel.WIDTH_20, WifiChannel.WIDTH_20, WifiChannel.WIDTH_20, WifiChannel.WIDTH_20,
+            WifiChannel.WIDTH_80, WifiChannel.WIDTH_80, WifiChannel.WIDTH_40, WifiChannel.WIDTH_160, WifiChannel.WIDTH_80,
+            WifiChannel.WIDTH_160, WifiChannel.WIDTH_320,
+    };
+
+    private Synthetic() {}
+
+    // n APs; samples[i] is AP i with its first-scan level
+    static ScanSample[] samples(int n, long seed) {
+        Random random = new Random(seed);
+        ScanSample[] out = new ScanSample[n];
+        for (int i = 0; i < n; i++) {
+            ScanSample s = new ScanSample();
+            // Globally administered, so vendor lookups actually search the index
+            s.mac = ((long) (random.nextInt(0x1000000) & 0xFCFFFF) << 24) | random.nextInt(0x1000000);
+            s.bssid = MacAddress.format(s.mac);
+            s.ssid = "net-" + Integer.toHexString(random.nextInt(0x10000));
+            s.capabilities = CAPABILITIES[random.nextInt(CAPABILITIES.length)];
+            s.level = -35 - random.nextInt(60);
+            int f = random.nextInt(FREQUENCIES.length);
+            s.frequency = FREQUENCIES[f];
+            s.channelWidth = WIDTHS[f];
+            s.centerFreq0 = s.channelWidth == WifiChannel.WIDTH_20 ? 0 : s.frequency + 10;
+            out[i] = s;
+        }
+        return out;
+    }
+
+    // levels[scan][ap]: per-scan RSSI jitter around each AP's base level
+    static int[][] levelJitter(ScanSample[] samples, int scans, long seed) {
+        Random random = new Random(seed);
+        int[][] levels = new int[scans][samples.length];
+        for (int s = 0; s < scans; s++) {
+            for (int i = 0; i < samples.length; i++) {
+                levels[s][i] = samples[i].level + random.nextInt(7) - 3;
+            }
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,78 @@
+package com.howling.radar.bench;
+
+import com.howling.radar.OuiIndex;
+import com.howling.radar.VendorLookup;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// OUI index load (map + header parse, what MacVendorHelper does at startup) and
+// MAC -> vendor lookups against the full-size index, for registered and unregistered prefixes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VendorLookupBenchmark {
+    private static final int MACS = 1024;
+
+    private File indexFile;
+    private final long[] hits = new long[MACS];
+    private final long[] misses = new long[MACS];
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        String path = System.getProperty("oui.idx");
+        if (path == null) throw new IllegalStateException("-Doui.idx=<path to oui.idx> not set");
+        indexFile = new File(path);
+        OuiIndex index = load();
+        VendorLookup.install(index);
+
+        Random random = new Random(42);
+        int h = 0;
+        int m = 0;
+        while (h < MACS || m < MACS) {
+            // Globally administered unicast prefixes only; the others never reach the index
+            long mac = ((long) (random.nextInt(0x1000000) & 0xFCFFFF) << 24) | random.nextInt(0x1000000);
+            if (index.find(mac) >= 0) {
+                if (h < MACS) hits[h++] = mac;
+            } else if (m < MACS) {
+                misses[m++] = mac;
+            }
+        }
+    }
+
+    private OuiIndex load() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+             FileChannel channel = file.getChannel()) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return OuiIndex.wrap(data);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public OuiIndex loadIndex() throws IOException {
+        return load();
+    }
+
+    @Benchmark
+    public String lookupHit() {
+        return VendorLookup.getVendor(hits[next++ & (MACS - 1)]);
+    }
+
+    @Benchmark
+    public String lookupMiss() {
+        return VendorLookup.getVendor(misses[next++ & (MACS - 1)]);
+    }
+}